@@ -0,0 +1,32 @@
+package jr.chatbot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chat completion backends, bound from {@code openrouter.providers[n].*}. When the list is empty the single
+ * {@code openrouter.api.url} / {@code openrouter.model} / {@code openrouter.api.key} backend is used.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "openrouter")
+public class LlmProviderProperties {
+
+    private List<Provider> providers = new ArrayList<>();
+
+    @Data
+    public static class Provider {
+        private String name;
+        private String url;
+        private String apiKey;
+        private String model;
+        // Divides the latency score, so heavier backends win against similarly fast ones
+        private int weight = 1;
+        // Lower values are tried first; higher priorities only take traffic on failover
+        private int priority = 0;
+    }
+}
@@ -0,0 +1,27 @@
+package jr.chatbot.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jr.chatbot.service.llm.MockOpenRouterServer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Starts {@link MockOpenRouterServer} next to the application. See {@code application-mock-llm.properties}.
+ */
+@Configuration
+@Profile("mock-llm")
+public class MockOpenRouterConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "openrouter.mock")
+    public MockOpenRouterProperties mockOpenRouterProperties() {
+        return new MockOpenRouterProperties();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public MockOpenRouterServer mockOpenRouterServer(MockOpenRouterProperties properties, ObjectMapper objectMapper) {
+        return new MockOpenRouterServer(properties, objectMapper);
+    }
+}
@@ -0,0 +1,36 @@
+package jr.chatbot.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Behaviour of the local OpenRouter stand-in, bound from {@code openrouter.mock.*} under the {@code mock-llm} profile.
+ */
+@Data
+public class MockOpenRouterProperties {
+
+    public enum LatencyDistribution { FIXED, UNIFORM, LOGNORMAL }
+
+    public enum ReplyMode { ECHO, LOREM }
+
+    private int port = 18089;
+    private int workerThreads = 0;
+
+    // Time to first byte; FIXED uses median, UNIFORM spans [0, 2 * median], LOGNORMAL is fitted to median and p99
+    private LatencyDistribution latencyDistribution = LatencyDistribution.LOGNORMAL;
+    private Duration latencyMedian = Duration.ofMillis(400);
+    private Duration latencyP99 = Duration.ofSeconds(3);
+
+    // Generation speed; streamed chunks are paced by it and non-streamed replies wait for the whole reply
+    private double tokensPerSecond = 60;
+
+    private ReplyMode replyMode = ReplyMode.ECHO;
+    private int replyTokens = 120;
+
+    // Share of requests answered with one of errorStatuses instead of a reply
+    private double errorRate = 0;
+    private List<Integer> errorStatuses = new ArrayList<>(List.of(429, 500, 503));
+}
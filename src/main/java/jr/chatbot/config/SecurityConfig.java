@@ -1,5 +1,6 @@
 package jr.chatbot.config;
 
+import jakarta.servlet.DispatcherType;
 import jr.chatbot.filter.TokenAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -52,7 +53,8 @@ public class SecurityConfig {
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        http.csrf(AbstractHttpConfigurer::disable).cors(Customizer.withDefaults()).sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS)).authorizeHttpRequests(auth -> auth.requestMatchers("/api/users/login", "/api/users/register", "/error", "/uploads/**").permitAll() // /uploads/** not good, but for simplicity. Should investigate secure way to serve static files
+        http.csrf(AbstractHttpConfigurer::disable).cors(Customizer.withDefaults()).sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS)).authorizeHttpRequests(auth -> auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Streaming responses complete on an async dispatch of an already authorized request
+                .requestMatchers("/api/users/login", "/api/users/register", "/error", "/uploads/**").permitAll() // /uploads/** not good, but for simplicity. Should investigate secure way to serve static files
                 .anyRequest().authenticated()).addFilterBefore(tokenAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
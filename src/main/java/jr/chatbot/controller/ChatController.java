@@ -1,9 +1,12 @@
 package jr.chatbot.controller;
 
 import jr.chatbot.dto.ChatRequest;
+import jr.chatbot.dto.ChatSummaryResponse;
+import jr.chatbot.dto.MessagePageResponse;
 import jr.chatbot.entity.Chat;
 import jr.chatbot.entity.Message;
 import jr.chatbot.service.ChatService;
+import jr.chatbot.service.MessageService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,8 +18,11 @@ import java.util.UUID;
 @RequestMapping("/api/chat")
 public class ChatController extends AbstractResourceController<Chat, ChatService> {
 
-    public ChatController(ChatService chatService) {
+    private final MessageService messageService;
+
+    public ChatController(ChatService chatService, MessageService messageService) {
         super(chatService);
+        this.messageService = messageService;
     }
 
     @PostMapping("/new")
@@ -27,10 +33,19 @@ public class ChatController extends AbstractResourceController<Chat, ChatService
         chat.setOwnerId(currentUserId);
         chat.setCharacterId(request.getCharacterId());
 
+        // A group chat is listed under its first participant when no character is given
+        if (request.getParticipantIds() != null && !request.getParticipantIds().isEmpty()) {
+            chat.getParticipantIds().addAll(request.getParticipantIds());
+            if (chat.getCharacterId() == null) {
+                chat.setCharacterId(request.getParticipantIds().getFirst());
+            }
+        }
+
         if (request.getMessageList() != null && !request.getMessageList().isEmpty()) {
             for (Message message : request.getMessageList()) {
                 message.setChat(chat);
                 message.setOwnerId(currentUserId);
+                ChatService.recordAppend(chat, message);
             }
             chat.getMessageList().addAll(request.getMessageList());
         }
@@ -52,6 +67,15 @@ public class ChatController extends AbstractResourceController<Chat, ChatService
         return ResponseEntity.ok(chats);
     }
 
+    /**
+     * Chat list entries without their messages: counts and the last message preview only.
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<List<ChatSummaryResponse>> getChatSummaries(@RequestParam UUID characterId) {
+        UUID currentUserId = service.getCurrentUserIdOrThrow();
+        return ResponseEntity.ok(service.findChatSummaries(characterId, currentUserId));
+    }
+
     @GetMapping("/latest")
     public ResponseEntity<Chat> getLatestChat(@RequestParam UUID characterId) {
         UUID currentUserId = service.getCurrentUserIdOrThrow();
@@ -59,6 +83,29 @@ public class ChatController extends AbstractResourceController<Chat, ChatService
         return ResponseEntity.ok(chat);
     }
 
+    /**
+     * Keyset-paginated messages of a chat, newest first; follow {@code nextCursor} for older pages.
+     */
+    @GetMapping("/{id}/messages")
+    public ResponseEntity<MessagePageResponse> getMessages(@PathVariable UUID id, @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
+        service.getCurrentUserIdOrThrow();
+        Chat chat = service.findByIdOrThrow(id);
+        service.validateOwnership(chat);
+        return ResponseEntity.ok(messageService.findMessagePage(id, cursor, limit));
+    }
+
+    /**
+     * Soft-deletes the listed messages of a chat in one statement.
+     */
+    @DeleteMapping("/{id}/messages")
+    public ResponseEntity<Void> deleteMessages(@PathVariable UUID id, @RequestParam List<UUID> ids) {
+        service.getCurrentUserIdOrThrow();
+        Chat chat = service.findByIdOrThrow(id);
+        service.validateOwnership(chat);
+        service.softDeleteMessages(id, ids);
+        return ResponseEntity.noContent().build();
+    }
+
     @Override
     @GetMapping("/{id}")
     public ResponseEntity<Chat> getById(@PathVariable UUID id) {
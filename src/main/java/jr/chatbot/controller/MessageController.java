@@ -1,24 +1,51 @@
 package jr.chatbot.controller;
 
+import jr.chatbot.dto.CacheStatsResponse;
 import jr.chatbot.dto.MessageRequest;
+import jr.chatbot.dto.ReplyJobResponse;
+import jr.chatbot.entity.Character;
 import jr.chatbot.entity.Chat;
 import jr.chatbot.entity.Message;
 import jr.chatbot.enums.MessageRoleEnum;
 import jr.chatbot.service.CharacterService;
 import jr.chatbot.service.ChatService;
+import jr.chatbot.service.ConversationSummaryService;
+import jr.chatbot.service.GroupChatService;
 import jr.chatbot.service.MessageService;
+import jr.chatbot.service.ReplyJobService;
+import jr.chatbot.service.StreamingReplyService;
+import jr.chatbot.service.UsageService;
+import jr.chatbot.service.llm.CompletionCache;
+import jr.chatbot.service.llm.RequestCancelledException;
+import jr.chatbot.service.llm.UserRateLimiter;
+import jr.chatbot.util.CancellationHandle;
+import jr.chatbot.util.SecurityUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.net.URI;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/message")
 public class MessageController {
+    private static final Logger log = LoggerFactory.getLogger(MessageController.class);
 
     @Autowired
     private CharacterService characterService;
@@ -29,29 +56,309 @@ public class MessageController {
     @Autowired
     private ChatService chatService;
 
+    @Autowired
+    private CompletionCache completionCache;
+
+    @Autowired
+    private UserRateLimiter userRateLimiter;
+
+    @Autowired
+    private ReplyJobService replyJobService;
+
+    @Autowired
+    private UsageService usageService;
+
+    @Autowired
+    private ConversationSummaryService conversationSummaryService;
+
+    @Autowired
+    private GroupChatService groupChatService;
+
+    @Autowired
+    private StreamingReplyService streamingReplyService;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${app.chat.stream-timeout-ms:300000}")
+    private long streamTimeoutMs;
+
+    @Value("${app.chat.history.accept-client-history:true}")
+    private boolean acceptClientHistory;
+
+    @Value("${app.chat.regenerate.max-candidates:4}")
+    private int maxCandidates;
+
+    /**
+     * Answered asynchronously; the upstream completion is cancelled when the request times out or fails, and
+     * a cancelled turn is not stored. An idle deferred request is not told when its client disconnects, so
+     * clients that need disconnect cancellation use {@code /stream}.
+     */
     @PostMapping
-    public ResponseEntity<Message> handleChat(@RequestBody MessageRequest messageRequest) {
+    public DeferredResult<ResponseEntity<Message>> handleChat(@RequestBody MessageRequest messageRequest) {
         UUID currentUserId = chatService.getCurrentUserIdOrThrow();
+        userRateLimiter.acquire(currentUserId);
 
         var character = characterService.findByIdOrThrow(messageRequest.getCharacterId());
 
-        if (messageRequest.getChatId() == null) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chat ID is required");
+        Chat chat = requireOwnedChat(messageRequest);
+        List<Message> history = resolveHistory(messageRequest, chat);
+        String summary = resolveSummary(messageRequest, chat);
+        Message userMessage = newUserMessage(messageRequest, currentUserId);
+
+        DeferredResult<ResponseEntity<Message>> result = new DeferredResult<>(streamTimeoutMs);
+        var cancellation = new CancellationHandle();
+        result.onTimeout(cancellation::cancel);
+        result.onError(e -> cancellation.cancel());
+
+        taskExecutor.execute(() -> {
+            cancellation.attach();
+            try {
+                var reply = messageService.getCoalescedAIResponse(chat, character, summary, history, messageRequest.getUserMessage());
+                if (cancellation.isCancelled()) {
+                    throw new RequestCancelledException("Client disconnected");
+                }
+                Message aiResponse = reply.value();
+
+                // A duplicate send that joined an in-flight completion must not store the turn a second time
+                if (!reply.shared()) {
+                    aiResponse.setOwnerId(currentUserId);
+                    chatService.addMessagesToChat(messageRequest.getChatId(), List.of(userMessage, aiResponse));
+                    usageService.record(chat, aiResponse);
+                    conversationSummaryService.scheduleRefresh(chat.getId());
+                }
+
+                result.setResult(ResponseEntity.ok(aiResponse));
+            } catch (RequestCancelledException e) {
+                log.debug("Client left before the reply for chat {} was ready", chat.getId());
+            } catch (Exception e) {
+                result.setErrorResult(e);
+            } finally {
+                cancellation.detach();
+            }
+        });
+
+        return result;
+    }
+
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChat(@RequestBody MessageRequest messageRequest) {
+        UUID currentUserId = chatService.getCurrentUserIdOrThrow();
+        userRateLimiter.acquire(currentUserId);
+
+        var character = characterService.findByIdOrThrow(messageRequest.getCharacterId());
+
+        Chat chat = requireOwnedChat(messageRequest);
+        List<Message> history = resolveHistory(messageRequest, chat);
+        String summary = resolveSummary(messageRequest, chat);
+        Message userMessage = newUserMessage(messageRequest, currentUserId);
+
+        // The reply's row exists from the start so partial content can be checkpointed into it
+        Message placeholder = new Message(MessageRoleEnum.ASSISTANT, "", ZonedDateTime.now());
+        placeholder.setOwnerId(currentUserId);
+        placeholder.setPartial(true);
+        chatService.addMessagesToChat(messageRequest.getChatId(), List.of(userMessage, placeholder));
+
+        var cancellation = new CancellationHandle();
+        var live = streamingReplyService.start(placeholder, cancellation);
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        subscribe(emitter, live);
+
+        // Once every client is gone past the reattach grace, the upstream stream is aborted and the partial reply kept
+        taskExecutor.execute(() -> {
+            cancellation.attach();
+            try {
+                Message aiResponse = messageService.streamAIResponse(character, summary, history, messageRequest.getUserMessage(), live::append);
+                // The last deltas may have been read before the interrupt was noticed
+                if (cancellation.isCancelled()) {
+                    throw new RequestCancelledException("Client disconnected");
+                }
+
+                Message saved = streamingReplyService.complete(live, aiResponse);
+                usageService.record(chat, saved);
+                conversationSummaryService.scheduleRefresh(chat.getId());
+            } catch (RequestCancelledException e) {
+                log.debug("Client left while streaming the reply for chat {}", chat.getId());
+                streamingReplyService.abandon(live);
+            } catch (Exception e) {
+                log.warn("Streaming the reply for chat {} failed: {}", chat.getId(), e.getMessage());
+                streamingReplyService.abandon(live);
+            } finally {
+                cancellation.detach();
+            }
+        });
+
+        return emitter;
+    }
+
+    /**
+     * Reattaches to a streamed reply: a {@code snapshot} with the content so far, the remaining {@code delta}s,
+     * then {@code done}. A reply that is no longer streaming sends {@code done} with the stored message;
+     * {@code partial} tells whether it was cut short.
+     */
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter reattachStream(@PathVariable UUID id) {
+        chatService.getCurrentUserIdOrThrow();
+
+        Message message = messageService.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Message not found"));
+        Chat chat = message.getChat();
+        if (chat == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied to this message");
         }
+        chatService.validateOwnership(chat);
 
-        Chat chat = chatService.findByIdOrThrow(messageRequest.getChatId());
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        var live = streamingReplyService.find(id);
+        if (live.isPresent()) {
+            subscribe(emitter, live.get());
+        } else if (sendEvent(emitter, "done", message)) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /**
+     * Sends one user message to every participant of a group chat and returns their replies in completion order.
+     */
+    @PostMapping("/group")
+    public ResponseEntity<List<Message>> handleGroupChat(@RequestBody MessageRequest messageRequest) {
+        UUID currentUserId = chatService.getCurrentUserIdOrThrow();
+
+        Chat chat = requireOwnedChat(messageRequest);
+        List<Character> characters = requireParticipants(chat, currentUserId);
+        List<Message> history = resolveHistory(messageRequest, chat);
+        String summary = resolveSummary(messageRequest, chat);
+        chatService.addMessageToChat(chat.getId(), newUserMessage(messageRequest, currentUserId));
+
+        var replies = groupChatService.respond(currentUserId, chat, characters, summary, history, messageRequest.getUserMessage(), reply -> {});
+        conversationSummaryService.scheduleRefresh(chat.getId());
+        return ResponseEntity.ok(replies);
+    }
+
+    /**
+     * Group chat variant of {@code /stream}: one {@code reply} event per character as each one finishes,
+     * then {@code done} with all replies.
+     */
+    @PostMapping(value = "/group/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamGroupChat(@RequestBody MessageRequest messageRequest) {
+        UUID currentUserId = chatService.getCurrentUserIdOrThrow();
+
+        Chat chat = requireOwnedChat(messageRequest);
+        List<Character> characters = requireParticipants(chat, currentUserId);
+        List<Message> history = resolveHistory(messageRequest, chat);
+        String summary = resolveSummary(messageRequest, chat);
+        chatService.addMessageToChat(chat.getId(), newUserMessage(messageRequest, currentUserId));
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        var cancellation = cancelOnDisconnect(emitter);
+
+        // Cancelling stops waiting for the characters still answering; replies already stored are kept
+        taskExecutor.execute(() -> {
+            cancellation.attach();
+            try {
+                var replies = groupChatService.respond(currentUserId, chat, characters, summary, history, messageRequest.getUserMessage(), reply -> {
+                    if (!cancellation.isCancelled() && !sendEvent(emitter, "reply", reply)) {
+                        cancellation.cancel();
+                    }
+                });
+                conversationSummaryService.scheduleRefresh(chat.getId());
+
+                if (!cancellation.isCancelled() && sendEvent(emitter, "done", replies)) {
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            } finally {
+                cancellation.detach();
+            }
+        });
+
+        return emitter;
+    }
+
+    /**
+     * Queues the AI reply and answers 202 right away; the user message is stored together with the reply.
+     * Poll {@code GET /jobs/{jobId}} or subscribe to {@code GET /jobs/{jobId}/events} for the result.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<ReplyJobResponse> submitChatJob(@RequestBody MessageRequest messageRequest) {
+        UUID currentUserId = chatService.getCurrentUserIdOrThrow();
+        userRateLimiter.acquire(currentUserId);
+
+        var character = characterService.findByIdOrThrow(messageRequest.getCharacterId());
+
+        Chat chat = requireOwnedChat(messageRequest);
+        List<Message> history = resolveHistory(messageRequest, chat);
+        String summary = resolveSummary(messageRequest, chat);
+        Message userMessage = newUserMessage(messageRequest, currentUserId);
+
+        var job = replyJobService.submit(currentUserId, chat, character, summary, history, userMessage);
+        return ResponseEntity.accepted().location(URI.create("/api/message/jobs/" + job.getId())).body(job.toResponse());
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ReplyJobResponse> getChatJob(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(requireOwnedJob(jobId).toResponse());
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeChatJob(@PathVariable UUID jobId) {
+        var job = requireOwnedJob(jobId);
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        job.getResult().whenComplete((aiResponse, e) -> {
+            if (sendEvent(emitter, e == null ? "done" : "error", job.toResponse())) {
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Generates alternatives for an assistant reply in parallel and appends them to its versions.
+     */
+    @PostMapping("/{id}/regenerate")
+    public ResponseEntity<Message> regenerate(@PathVariable UUID id, @RequestParam(defaultValue = "3") int candidates) {
+        UUID currentUserId = chatService.getCurrentUserIdOrThrow();
+
+        Message target = messageService.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Message not found"));
+        Chat chat = target.getChat();
+        if (chat == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied to this message");
+        }
         chatService.validateOwnership(chat);
+        if (target.getRole() != MessageRoleEnum.ASSISTANT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only assistant messages can be regenerated");
+        }
 
-        Message userMessage = new Message(MessageRoleEnum.USER, messageRequest.getUserMessage(), ZonedDateTime.now());
-        userMessage.setOwnerId(currentUserId);
-        chatService.addMessageToChat(messageRequest.getChatId(), userMessage);
+        int count = Math.clamp(candidates, 1, maxCandidates);
+        userRateLimiter.acquire(currentUserId, count);
 
-        Message aiResponse = messageService.getAIResponse(character, messageRequest.getHistory(), messageRequest.getUserMessage());
-        aiResponse.setOwnerId(currentUserId);
+        // In a group chat the reply may come from any participant, not the chat's primary character
+        UUID speakerId = target.getCharacterId() != null ? target.getCharacterId() : chat.getCharacterId();
+        var character = characterService.findByIdOrThrow(speakerId);
+        List<Message> history = groupChatService.historyBefore(chat, character, target);
+        if (history.isEmpty() || history.getLast().getRole() != MessageRoleEnum.USER) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No user message to regenerate from");
+        }
+        Message prompt = history.removeLast();
 
-        chatService.addMessageToChat(messageRequest.getChatId(), aiResponse);
+        List<String> alternatives = messageService.generateCandidates(character, chat.getSummary(), history, prompt.getContent(), count);
+        if (alternatives.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Could not generate alternatives");
+        }
 
-        return ResponseEntity.ok(aiResponse);
+        return ResponseEntity.ok(messageService.appendVersions(id, alternatives));
+    }
+
+    @GetMapping("/cache-stats")
+    public ResponseEntity<CacheStatsResponse> getCacheStats() {
+        chatService.getCurrentUserIdOrThrow();
+        if (!SecurityUtil.isCurrentUserAdmin()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied");
+        }
+        return ResponseEntity.ok(completionCache.stats());
     }
 
     @PutMapping("/{id}")
@@ -69,4 +376,94 @@ public class MessageController {
         Message savedMessage = messageService.updateMessage(id, updatedMessage);
         return ResponseEntity.ok(savedMessage);
     }
-}
\ No newline at end of file
+
+    // Other users' jobs are reported as missing rather than forbidden
+    private ReplyJobService.ReplyJob requireOwnedJob(UUID jobId) {
+        UUID currentUserId = chatService.getCurrentUserIdOrThrow();
+        return replyJobService.find(jobId)
+                .filter(job -> job.getOwnerId().equals(currentUserId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Job not found"));
+    }
+
+    private Chat requireOwnedChat(MessageRequest messageRequest) {
+        if (messageRequest.getChatId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chat ID is required");
+        }
+
+        Chat chat = chatService.findByIdOrThrow(messageRequest.getChatId());
+        chatService.validateOwnership(chat);
+        return chat;
+    }
+
+    // Each participant costs one rate-limit token, like each regeneration candidate
+    private List<Character> requireParticipants(Chat chat, UUID currentUserId) {
+        if (chat.getParticipantIds().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chat has no group participants");
+        }
+        var characters = new ArrayList<Character>();
+        for (UUID characterId : chat.getParticipantIds()) {
+            characters.add(characterService.findByIdOrThrow(characterId));
+        }
+        userRateLimiter.acquire(currentUserId, characters.size());
+        return characters;
+    }
+
+    // Clients that omit history get the stored conversation; must run before the new user message is saved
+    private List<Message> resolveHistory(MessageRequest messageRequest, Chat chat) {
+        if (usesClientHistory(messageRequest)) {
+            return messageRequest.getHistory();
+        }
+        return messageService.findRecentHistory(chat);
+    }
+
+    // The stored summary covers the turns before the stored window, so it does not belong in front of client history
+    private String resolveSummary(MessageRequest messageRequest, Chat chat) {
+        return usesClientHistory(messageRequest) ? null : chat.getSummary();
+    }
+
+    private boolean usesClientHistory(MessageRequest messageRequest) {
+        return acceptClientHistory && messageRequest.getHistory() != null;
+    }
+
+    private Message newUserMessage(MessageRequest messageRequest, UUID currentUserId) {
+        Message userMessage = new Message(MessageRoleEnum.USER, messageRequest.getUserMessage(), ZonedDateTime.now());
+        userMessage.setOwnerId(currentUserId);
+        return userMessage;
+    }
+
+    private void subscribe(SseEmitter emitter, StreamingReplyService.LiveReply live) {
+        var subscriber = new StreamingReplyService.Subscriber() {
+            @Override
+            public boolean send(String event, Object data) {
+                return sendEvent(emitter, event, data);
+            }
+
+            @Override
+            public void complete() {
+                emitter.complete();
+            }
+        };
+        emitter.onTimeout(() -> live.unsubscribe(subscriber));
+        emitter.onError(e -> live.unsubscribe(subscriber));
+        emitter.onCompletion(() -> live.unsubscribe(subscriber));
+        live.subscribe(subscriber);
+    }
+
+    // Completion also fires after a normal finish, when the worker has already detached
+    private CancellationHandle cancelOnDisconnect(SseEmitter emitter) {
+        var cancellation = new CancellationHandle();
+        emitter.onTimeout(cancellation::cancel);
+        emitter.onError(e -> cancellation.cancel());
+        emitter.onCompletion(cancellation::cancel);
+        return cancellation;
+    }
+
+    private boolean sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package jr.chatbot.controller;
+
+import jr.chatbot.dto.CharacterUsageResponse;
+import jr.chatbot.entity.Chat;
+import jr.chatbot.entity.ChatUsage;
+import jr.chatbot.entity.UserDailyUsage;
+import jr.chatbot.service.ChatService;
+import jr.chatbot.service.UsageService;
+import jr.chatbot.util.SecurityUtil;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/usage")
+public class UsageController {
+
+    private static final int DEFAULT_DAYS = 30;
+
+    private final UsageService usageService;
+    private final ChatService chatService;
+
+    public UsageController(UsageService usageService, ChatService chatService) {
+        this.usageService = usageService;
+        this.chatService = chatService;
+    }
+
+    @GetMapping("/chats/{chatId}")
+    public ResponseEntity<ChatUsage> getChatUsage(@PathVariable UUID chatId) {
+        chatService.getCurrentUserIdOrThrow();
+        Chat chat = chatService.findByIdOrThrow(chatId);
+        chatService.validateOwnership(chat);
+
+        return ResponseEntity.ok(usageService.findChatUsage(chatId).orElseGet(() -> emptyChatUsage(chat)));
+    }
+
+    @GetMapping("/me")
+    public ResponseEntity<List<UserDailyUsage>> getMyUsage(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        UUID currentUserId = chatService.getCurrentUserIdOrThrow();
+        return ResponseEntity.ok(findUserUsage(currentUserId, from, to));
+    }
+
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<List<UserDailyUsage>> getUserUsage(@PathVariable UUID userId,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        requireAdmin();
+        return ResponseEntity.ok(findUserUsage(userId, from, to));
+    }
+
+    @GetMapping("/characters")
+    public ResponseEntity<List<CharacterUsageResponse>> getTopCharacters(@RequestParam(defaultValue = "20") int limit) {
+        requireAdmin();
+        return ResponseEntity.ok(usageService.findTopCharacters(Math.clamp(limit, 1, 100)));
+    }
+
+    // Days are UTC; defaults to the last 30 days
+    private List<UserDailyUsage> findUserUsage(UUID userId, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        return usageService.findUserUsage(userId, start, end);
+    }
+
+    private void requireAdmin() {
+        chatService.getCurrentUserIdOrThrow();
+        if (!SecurityUtil.isCurrentUserAdmin()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied");
+        }
+    }
+
+    private ChatUsage emptyChatUsage(Chat chat) {
+        var usage = new ChatUsage();
+        usage.setChatId(chat.getId());
+        usage.setOwnerId(chat.getOwnerId());
+        usage.setCharacterId(chat.getCharacterId());
+        return usage;
+    }
+}
@@ -0,0 +1,16 @@
+package jr.chatbot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class CharacterUsageResponse {
+    private UUID characterId;
+    private long replies;
+    private long promptTokens;
+    private long completionTokens;
+    private long totalLatencyMs;
+}
@@ -10,6 +10,7 @@ import java.util.UUID;
 public class ChatRequest {
     private UUID ownerId;
     private UUID characterId;
+    private List<UUID> participantIds;
     private List<Message> messageList;
 }
 
@@ -0,0 +1,19 @@
+package jr.chatbot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class ChatSummaryResponse {
+    private UUID id;
+    private UUID characterId;
+    private ZonedDateTime createdAt;
+    private ZonedDateTime updatedAt;
+    private Integer messageCount;
+    private String lastMessagePreview;
+    private ZonedDateTime lastMessageAt;
+}
@@ -0,0 +1,14 @@
+package jr.chatbot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MessagePageResponse {
+    // Newest first; pass nextCursor back to get the older messages, null on the last page
+    private List<MessageResponse> messages;
+    private String nextCursor;
+}
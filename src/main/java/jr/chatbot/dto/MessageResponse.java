@@ -0,0 +1,19 @@
+package jr.chatbot.dto;
+
+import jr.chatbot.enums.MessageRoleEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class MessageResponse {
+    private UUID id;
+    private MessageRoleEnum role;
+    private String content;
+    private ZonedDateTime timestamp;
+    private UUID characterId;
+    private Boolean partial;
+}
@@ -0,0 +1,18 @@
+package jr.chatbot.dto;
+
+import jr.chatbot.entity.Message;
+import jr.chatbot.enums.ReplyJobStatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class ReplyJobResponse {
+    private UUID jobId;
+    private UUID chatId;
+    private ReplyJobStatusEnum status;
+    private Message message;
+    private String error;
+}
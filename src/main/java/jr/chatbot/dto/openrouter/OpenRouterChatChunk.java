@@ -0,0 +1,28 @@
+package jr.chatbot.dto.openrouter;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OpenRouterChatChunk {
+    private String id;
+    private String model;
+    private OpenRouterChatResponse.Usage usage;
+    private List<Choice> choices;
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Choice {
+        private OpenAIMessage delta;
+        private int index;
+        @JsonProperty("finish_reason")
+        private String finishReason;
+    }
+}
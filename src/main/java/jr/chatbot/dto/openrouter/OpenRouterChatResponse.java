@@ -1,5 +1,6 @@
 package jr.chatbot.dto.openrouter;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,6 +9,7 @@ import java.util.List;
 
 @Data
 @NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class OpenRouterChatResponse {
     private String id;
     private String object;
@@ -18,6 +20,7 @@ public class OpenRouterChatResponse {
 
     @Data
     @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Choice {
         private OpenAIMessage message;
         private int index;
@@ -27,6 +30,7 @@ public class OpenRouterChatResponse {
 
     @Data
     @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Usage {
         @JsonProperty("prompt_tokens")
         private int promptTokens;
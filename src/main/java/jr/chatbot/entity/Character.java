@@ -37,6 +37,13 @@ public class Character extends Resource {
     @Column(name = "profile_image_large")
     private String profileImageLarge;
 
+    @Column(name = "response_cache_enabled")
+    private Boolean responseCacheEnabled = true;
+
+    // Routed ahead of the configured backends when set
+    @Column(name = "preferred_model")
+    private String preferredModel;
+
     @JdbcTypeCode(SqlTypes.JSON)
     @Column
     private Map<String, String> customFields = new HashMap<>();
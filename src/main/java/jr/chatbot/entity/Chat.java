@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.BatchSize;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -18,6 +19,30 @@ public class Chat extends Resource {
     @Column
     private UUID characterId;
 
+    // Characters answering each user turn in a group chat; empty for one-on-one chats
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "chat_participants", joinColumns = @JoinColumn(name = "chat_id"))
+    @Column(name = "character_id")
+    @OrderColumn(name = "position")
+    private List<UUID> participantIds = new ArrayList<>();
+
+    // Running summary of the turns up to and including summarizedUpTo
+    @Column(length = 20000)
+    private String summary;
+
+    @Column(name = "summarized_up_to")
+    private ZonedDateTime summarizedUpTo;
+
+    // Denormalized for chat lists, kept current by ChatService on every append
+    @Column(name = "message_count")
+    private Integer messageCount = 0;
+
+    @Column(name = "last_message_preview", length = 200)
+    private String lastMessagePreview;
+
+    @Column(name = "last_message_at")
+    private ZonedDateTime lastMessageAt;
+
     @OneToMany(mappedBy = "chat", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonManagedReference
     @BatchSize(size = 10)
@@ -0,0 +1,62 @@
+package jr.chatbot.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Running totals of AI replies by one character in one chat; a group chat has a row per character.
+ * Maintained incrementally by {@link jr.chatbot.service.UsageService}.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "chat_usage", indexes = {
+    @Index(name = "idx_chat_usage_character_id", columnList = "character_id")
+})
+@IdClass(ChatUsage.Key.class)
+public class ChatUsage {
+    @Id
+    @Column(name = "chat_id")
+    private UUID chatId;
+
+    @Column(name = "owner_id")
+    private UUID ownerId;
+
+    @Id
+    @Column(name = "character_id")
+    private UUID characterId;
+
+    @Column(nullable = false)
+    private long replies;
+
+    @Column(name = "prompt_tokens", nullable = false)
+    private long promptTokens;
+
+    @Column(name = "completion_tokens", nullable = false)
+    private long completionTokens;
+
+    @Column(name = "total_latency_ms", nullable = false)
+    private long totalLatencyMs;
+
+    @Column(name = "updated_at")
+    private ZonedDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID chatId;
+        private UUID characterId;
+    }
+}
@@ -11,6 +11,7 @@ import lombok.NoArgsConstructor;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
@@ -19,7 +20,8 @@ import java.util.List;
 @Entity
 @Table(name = "messages", indexes = {
     @Index(name = "idx_message_chat_id", columnList = "chat_id"),
-    @Index(name = "idx_message_timestamp", columnList = "timestamp")
+    @Index(name = "idx_message_timestamp", columnList = "timestamp"),
+    @Index(name = "idx_message_chat_timestamp", columnList = "chat_id, timestamp, id")
 })
 public class Message extends Resource {
     @ManyToOne(fetch = FetchType.LAZY)
@@ -33,6 +35,10 @@ public class Message extends Resource {
     @Column
     private ZonedDateTime timestamp;
 
+    // Character that wrote an assistant reply in a group chat
+    @Column(name = "character_id")
+    private UUID characterId;
+
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "message_versions", joinColumns = @JoinColumn(name = "message_id"))
     @Column(name = "version_content", length = 10000)
@@ -41,9 +47,35 @@ public class Message extends Resource {
     @Column(name = "current_version_index")
     private Integer currentVersionIndex;
 
+    // True while a streamed reply is being written, and afterwards if the stream never finished
+    @Column
+    private Boolean partial;
+
+    // Usage of the completion that produced an assistant reply; null for user turns and cached replies
+    @Column
+    private String model;
+
+    @Column(name = "prompt_tokens")
+    private Integer promptTokens;
+
+    @Column(name = "completion_tokens")
+    private Integer completionTokens;
+
+    // Local pre-flight estimate of the prompt, kept next to the provider's count to track estimator drift
+    @Column(name = "estimated_prompt_tokens")
+    private Integer estimatedPromptTokens;
+
+    @Column(name = "latency_ms")
+    private Long latencyMs;
+
     public Message(MessageRoleEnum role, String content, ZonedDateTime timestamp) {
         this.role = role;
         this.content = content;
         this.timestamp = timestamp;
     }
+
+    public Message(MessageRoleEnum role, String content, ZonedDateTime timestamp, UUID characterId) {
+        this(role, content, timestamp);
+        this.characterId = characterId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package jr.chatbot.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Running totals of AI replies per user and UTC day. Maintained incrementally by {@link jr.chatbot.service.UsageService}.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "user_daily_usage")
+@IdClass(UserDailyUsage.Key.class)
+public class UserDailyUsage {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Id
+    @Column(name = "usage_date")
+    private LocalDate usageDate;
+
+    @Column(nullable = false)
+    private long replies;
+
+    @Column(name = "prompt_tokens", nullable = false)
+    private long promptTokens;
+
+    @Column(name = "completion_tokens", nullable = false)
+    private long completionTokens;
+
+    @Column(name = "total_latency_ms", nullable = false)
+    private long totalLatencyMs;
+
+    @Column(name = "updated_at")
+    private ZonedDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+        private LocalDate usageDate;
+    }
+}
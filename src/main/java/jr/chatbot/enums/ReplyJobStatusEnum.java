@@ -0,0 +1,8 @@
+package jr.chatbot.enums;
+
+public enum ReplyJobStatusEnum {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -1,11 +1,13 @@
 package jr.chatbot.repository;
 
+import jr.chatbot.dto.ChatSummaryResponse;
 import jr.chatbot.entity.Chat;
 import jr.chatbot.enums.ResourceStatusEnum;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,7 +30,23 @@ public interface ChatRepository extends ResourceRepository<Chat> {
 
     List<Chat> findByCharacterId(UUID characterId);
 
+    @Query("SELECT new jr.chatbot.dto.ChatSummaryResponse(c.id, c.characterId, c.createdAt, c.updatedAt, c.messageCount, c.lastMessagePreview, c.lastMessageAt) FROM Chat c WHERE c.characterId = :characterId AND c.ownerId = :ownerId AND c.resourceStatus = :status ORDER BY COALESCE(c.lastMessageAt, c.createdAt) DESC")
+    List<ChatSummaryResponse> findSummariesByCharacterIdAndOwnerId(@Param("characterId") UUID characterId, @Param("ownerId") UUID ownerId, @Param("status") ResourceStatusEnum status);
+
+    @Modifying
+    @Query("UPDATE Chat c SET c.updatedAt = :now, c.messageCount = COALESCE(c.messageCount, 0) + :countDelta, c.lastMessagePreview = :preview, c.lastMessageAt = :lastMessageAt WHERE c.id = :id")
+    int updateListColumns(@Param("id") UUID id, @Param("countDelta") int countDelta, @Param("now") ZonedDateTime now, @Param("preview") String preview, @Param("lastMessageAt") ZonedDateTime lastMessageAt);
+
+    // Chats stored before the list columns existed; their preview fills in with the next message
+    @Modifying
+    @Query("UPDATE Chat c SET c.messageCount = (SELECT COUNT(m) FROM Message m WHERE m.chat = c AND m.resourceStatus = :status), c.lastMessageAt = (SELECT MAX(m.timestamp) FROM Message m WHERE m.chat = c AND m.resourceStatus = :status) WHERE c.messageCount IS NULL")
+    int backfillListColumns(@Param("status") ResourceStatusEnum status);
+
+    @Modifying
+    @Query("UPDATE Chat c SET c.resourceStatus = :status, c.updatedAt = :now WHERE c.characterId = :characterId")
+    int bulkUpdateResourceStatusByCharacterId(@Param("characterId") UUID characterId, @Param("status") ResourceStatusEnum status, @Param("now") ZonedDateTime now);
+
     @Modifying
-    @Query("UPDATE Chat c SET c.resourceStatus = :status WHERE c.characterId = :characterId")
-    int bulkUpdateResourceStatusByCharacterId(@Param("characterId") UUID characterId, @Param("status") ResourceStatusEnum status);
+    @Query("UPDATE Chat c SET c.summary = :summary, c.summarizedUpTo = :summarizedUpTo WHERE c.id = :id")
+    int updateSummary(@Param("id") UUID id, @Param("summary") String summary, @Param("summarizedUpTo") ZonedDateTime summarizedUpTo);
 }
@@ -0,0 +1,25 @@
+package jr.chatbot.repository;
+
+import jr.chatbot.dto.CharacterUsageResponse;
+import jr.chatbot.entity.ChatUsage;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface ChatUsageRepository extends JpaRepository<ChatUsage, ChatUsage.Key> {
+
+    @Modifying
+    @Query("UPDATE ChatUsage u SET u.replies = u.replies + :replies, u.promptTokens = u.promptTokens + :promptTokens, u.completionTokens = u.completionTokens + :completionTokens, u.totalLatencyMs = u.totalLatencyMs + :latencyMs, u.updatedAt = :now WHERE u.chatId = :chatId AND u.characterId = :characterId")
+    int increment(@Param("chatId") UUID chatId, @Param("characterId") UUID characterId, @Param("replies") long replies, @Param("promptTokens") long promptTokens, @Param("completionTokens") long completionTokens, @Param("latencyMs") long latencyMs, @Param("now") ZonedDateTime now);
+
+    List<ChatUsage> findByChatId(UUID chatId);
+
+    @Query("SELECT new jr.chatbot.dto.CharacterUsageResponse(u.characterId, SUM(u.replies), SUM(u.promptTokens), SUM(u.completionTokens), SUM(u.totalLatencyMs)) FROM ChatUsage u GROUP BY u.characterId ORDER BY SUM(u.promptTokens) + SUM(u.completionTokens) DESC")
+    List<CharacterUsageResponse> findTopCharacters(Limit limit);
+}
@@ -1,20 +1,61 @@
 package jr.chatbot.repository;
 
+import jr.chatbot.dto.MessageResponse;
 import jr.chatbot.entity.Message;
 import jr.chatbot.enums.ResourceStatusEnum;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
-public interface MessageRepository extends JpaRepository<Message, UUID> {
+public interface MessageRepository extends ResourceRepository<Message> {
     @Query("SELECT m FROM Message m WHERE m.chat.id = :chatId")
     List<Message> findByChatId(@Param("chatId") UUID chatId);
 
+    // Constructor projections keep the EAGER versions collection out of history loads
+    @Query("SELECT new jr.chatbot.entity.Message(m.role, m.content, m.timestamp, m.characterId) FROM Message m WHERE m.chat.id = :chatId AND m.resourceStatus = :status AND m.timestamp > :after ORDER BY m.timestamp DESC, m.id DESC")
+    List<Message> findRecentTurnsByChatId(@Param("chatId") UUID chatId, @Param("status") ResourceStatusEnum status, @Param("after") ZonedDateTime after, Limit limit);
+
+    @Query("SELECT new jr.chatbot.entity.Message(m.role, m.content, m.timestamp, m.characterId) FROM Message m WHERE m.chat.id = :chatId AND m.resourceStatus = :status AND m.timestamp > :after AND m.timestamp < :before ORDER BY m.timestamp DESC, m.id DESC")
+    List<Message> findRecentTurnsBeforeByChatId(@Param("chatId") UUID chatId, @Param("status") ResourceStatusEnum status, @Param("after") ZonedDateTime after, @Param("before") ZonedDateTime before, Limit limit);
+
+    @Query("SELECT new jr.chatbot.entity.Message(m.role, m.content, m.timestamp, m.characterId) FROM Message m WHERE m.chat.id = :chatId AND m.resourceStatus = :status AND m.timestamp > :after ORDER BY m.timestamp ASC, m.id ASC")
+    List<Message> findOldestTurnsByChatId(@Param("chatId") UUID chatId, @Param("status") ResourceStatusEnum status, @Param("after") ZonedDateTime after, Limit limit);
+
+    // Keyset pages over (timestamp, id), newest first; served from idx_message_chat_timestamp
+    @Query("SELECT new jr.chatbot.dto.MessageResponse(m.id, m.role, m.content, m.timestamp, m.characterId, m.partial) FROM Message m WHERE m.chat.id = :chatId AND m.resourceStatus = :status ORDER BY m.timestamp DESC, m.id DESC")
+    List<MessageResponse> findNewestPageByChatId(@Param("chatId") UUID chatId, @Param("status") ResourceStatusEnum status, Limit limit);
+
+    @Query("SELECT new jr.chatbot.dto.MessageResponse(m.id, m.role, m.content, m.timestamp, m.characterId, m.partial) FROM Message m WHERE m.chat.id = :chatId AND m.resourceStatus = :status AND (m.timestamp < :timestamp OR (m.timestamp = :timestamp AND m.id < :id)) ORDER BY m.timestamp DESC, m.id DESC")
+    List<MessageResponse> findPageBeforeByChatId(@Param("chatId") UUID chatId, @Param("status") ResourceStatusEnum status, @Param("timestamp") ZonedDateTime timestamp, @Param("id") UUID id, Limit limit);
+
+    @Query("SELECT COUNT(m) FROM Message m WHERE m.chat.id = :chatId AND m.resourceStatus = :status AND m.timestamp > :after")
+    long countTurnsByChatId(@Param("chatId") UUID chatId, @Param("status") ResourceStatusEnum status, @Param("after") ZonedDateTime after);
+
+    @Modifying
+    @Query("UPDATE Message m SET m.content = :content, m.updatedAt = :now WHERE m.id = :id")
+    int updateContent(@Param("id") UUID id, @Param("content") String content, @Param("now") ZonedDateTime now);
+
+    @Modifying
+    @Query("UPDATE Message m SET m.resourceStatus = :status, m.updatedAt = :now WHERE m.chat.id IN (SELECT c.id FROM Chat c WHERE c.characterId = :characterId)")
+    int bulkUpdateResourceStatusByCharacterId(@Param("characterId") UUID characterId, @Param("status") ResourceStatusEnum status, @Param("now") ZonedDateTime now);
+
+    @Query("SELECT m.id FROM Message m WHERE m.chat.id = :chatId AND m.resourceStatus = :status")
+    List<UUID> findIdsByChatIdAndResourceStatus(@Param("chatId") UUID chatId, @Param("status") ResourceStatusEnum status, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Message m SET m.resourceStatus = :status, m.updatedAt = :now WHERE m.chat.id = :chatId")
+    int bulkUpdateResourceStatusByChatId(@Param("chatId") UUID chatId, @Param("status") ResourceStatusEnum status, @Param("now") ZonedDateTime now);
+
+    // Rows already in the target status are not counted, so callers can adjust the chat's message count
     @Modifying
-    @Query("UPDATE Message m SET m.resourceStatus = :status WHERE m.chat.id IN (SELECT c.id FROM Chat c WHERE c.characterId = :characterId)")
-    int bulkUpdateResourceStatusByCharacterId(@Param("characterId") UUID characterId, @Param("status") ResourceStatusEnum status);
+    @Query("UPDATE Message m SET m.resourceStatus = :status, m.updatedAt = :now WHERE m.chat.id = :chatId AND m.id IN :ids AND m.resourceStatus <> :status")
+    int bulkUpdateResourceStatusByChatIdAndIds(@Param("chatId") UUID chatId, @Param("ids") Collection<UUID> ids, @Param("status") ResourceStatusEnum status, @Param("now") ZonedDateTime now);
 }
@@ -3,8 +3,14 @@ package jr.chatbot.repository;
 import jr.chatbot.entity.Resource;
 import jr.chatbot.enums.ResourceStatusEnum;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -15,5 +21,11 @@ public interface ResourceRepository<T extends Resource> extends JpaRepository<T,
     List<T> findByResourceStatusAndOwnerId(ResourceStatusEnum resourceStatus, UUID ownerId);
 
     List<T> findByOwnerId(UUID ownerId);
+
+    // Own transaction when called outside one, so chunked background work commits chunk by chunk
+    @Transactional
+    @Modifying
+    @Query("UPDATE #{#entityName} r SET r.resourceStatus = :status, r.updatedAt = :now WHERE r.id IN :ids")
+    int bulkUpdateResourceStatusByIds(@Param("ids") Collection<UUID> ids, @Param("status") ResourceStatusEnum status, @Param("now") ZonedDateTime now);
 }
 
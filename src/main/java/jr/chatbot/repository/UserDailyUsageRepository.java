@@ -0,0 +1,22 @@
+package jr.chatbot.repository;
+
+import jr.chatbot.entity.UserDailyUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface UserDailyUsageRepository extends JpaRepository<UserDailyUsage, UserDailyUsage.Key> {
+
+    @Modifying
+    @Query("UPDATE UserDailyUsage u SET u.replies = u.replies + :replies, u.promptTokens = u.promptTokens + :promptTokens, u.completionTokens = u.completionTokens + :completionTokens, u.totalLatencyMs = u.totalLatencyMs + :latencyMs, u.updatedAt = :now WHERE u.userId = :userId AND u.usageDate = :usageDate")
+    int increment(@Param("userId") UUID userId, @Param("usageDate") LocalDate usageDate, @Param("replies") long replies, @Param("promptTokens") long promptTokens, @Param("completionTokens") long completionTokens, @Param("latencyMs") long latencyMs, @Param("now") ZonedDateTime now);
+
+    @Query("SELECT u FROM UserDailyUsage u WHERE u.userId = :userId AND u.usageDate BETWEEN :from AND :to ORDER BY u.usageDate")
+    List<UserDailyUsage> findByUserIdBetween(@Param("userId") UUID userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
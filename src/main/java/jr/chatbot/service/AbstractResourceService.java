@@ -2,17 +2,18 @@ package jr.chatbot.service;
 
 import jr.chatbot.entity.Resource;
 import jr.chatbot.enums.ResourceStatusEnum;
+import jr.chatbot.repository.ResourceRepository;
 import jr.chatbot.util.SecurityUtil;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.lang.reflect.ParameterizedType;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public abstract class AbstractResourceService<T extends Resource, R extends JpaRepository<T, UUID>> {
+public abstract class AbstractResourceService<T extends Resource, R extends ResourceRepository<T>> {
 
     protected final R repository;
     private final String resourceName;
@@ -61,17 +62,22 @@ public abstract class AbstractResourceService<T extends Resource, R extends JpaR
         entity.setOwnerId(existing.getOwnerId());
         entity.setCreatedAt(existing.getCreatedAt());
         entity.setResourceStatus(existing.getResourceStatus());
+        keepServerFields(existing, entity);
 
         return repository.save(entity);
     }
 
+    /**
+     * Copies fields the server maintains from {@code existing} onto an incoming update, so clients cannot overwrite them.
+     */
+    protected void keepServerFields(T existing, T entity) {
+    }
+
     public boolean softDelete(UUID id) {
         Optional<T> entityOpt = repository.findById(id);
         if (entityOpt.isPresent()) {
-            T entity = entityOpt.get();
-            validateOwnership(entity);
-            entity.setResourceStatus(ResourceStatusEnum.DELETED);
-            repository.save(entity);
+            validateOwnership(entityOpt.get());
+            repository.bulkUpdateResourceStatusByIds(List.of(id), ResourceStatusEnum.DELETED, ZonedDateTime.now());
             return true;
         }
         return false;
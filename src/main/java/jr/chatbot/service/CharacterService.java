@@ -4,9 +4,11 @@ import jakarta.transaction.Transactional;
 import jr.chatbot.entity.Character;
 import jr.chatbot.enums.ResourceStatusEnum;
 import jr.chatbot.repository.CharacterRepository;
+import jr.chatbot.service.llm.SystemPromptCache;
 import jr.chatbot.util.SecurityUtil;
 import org.springframework.stereotype.Service;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,11 +16,13 @@ import java.util.UUID;
 public class CharacterService extends AbstractResourceService<Character, CharacterRepository> {
     private final ChatService chatService;
     private final MessageService messageService;
+    private final SystemPromptCache systemPromptCache;
 
-    public CharacterService(CharacterRepository characterRepository, ChatService chatService, MessageService messageService) {
+    public CharacterService(CharacterRepository characterRepository, ChatService chatService, MessageService messageService, SystemPromptCache systemPromptCache) {
         super(characterRepository);
         this.chatService = chatService;
         this.messageService = messageService;
+        this.systemPromptCache = systemPromptCache;
     }
 
     public List<Character> getAllCharacters() {
@@ -29,17 +33,31 @@ public class CharacterService extends AbstractResourceService<Character, Charact
         return repository.findByResourceStatusAndOwnerId(ResourceStatusEnum.ACTIVE, currentUserId);
     }
 
+    @Override
+    public Character save(Character character) {
+        Character saved = super.save(character);
+        systemPromptCache.invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public Character update(UUID id, Character character) {
+        Character updated = super.update(id, character);
+        systemPromptCache.invalidate(id);
+        return updated;
+    }
+
     @Override
     @Transactional
     public boolean softDelete(UUID id) {
         Character character = findByIdOrThrow(id);
         validateOwnership(character);
 
-        character.setResourceStatus(ResourceStatusEnum.DELETED);
-        repository.save(character);
+        repository.bulkUpdateResourceStatusByIds(List.of(id), ResourceStatusEnum.DELETED, ZonedDateTime.now());
 
         messageService.softDeleteMessagesByCharacterId(id);
         chatService.softDeleteChatsByCharacterId(id);
+        systemPromptCache.invalidate(id);
 
         return true;
     }
@@ -1,20 +1,79 @@
 package jr.chatbot.service;
 
 import jakarta.transaction.Transactional;
+import jr.chatbot.dto.ChatSummaryResponse;
+import jr.chatbot.dto.MessageResponse;
 import jr.chatbot.entity.Chat;
 import jr.chatbot.entity.Message;
+import jr.chatbot.enums.ResourceStatusEnum;
 import jr.chatbot.repository.ChatRepository;
+import jr.chatbot.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class ChatService extends AbstractResourceService<Chat, ChatRepository> {
+    private static final Logger log = LoggerFactory.getLogger(ChatService.class);
+    private static final int PREVIEW_LENGTH = 120;
 
-    public ChatService(ChatRepository chatRepository) {
+    private final MessageRepository messageRepository;
+
+    private final MessageService messageService;
+
+    public ChatService(ChatRepository chatRepository, MessageRepository messageRepository, MessageService messageService) {
         super(chatRepository);
+        this.messageRepository = messageRepository;
+        this.messageService = messageService;
+    }
+
+    /**
+     * Deleting a chat also soft-deletes its messages; large chats finish in the background.
+     */
+    // List columns and the summary are only written through ChatRepository's UPDATE queries
+    @Override
+    protected void keepServerFields(Chat existing, Chat chat) {
+        chat.setMessageCount(existing.getMessageCount());
+        chat.setLastMessagePreview(existing.getLastMessagePreview());
+        chat.setLastMessageAt(existing.getLastMessageAt());
+        chat.setSummary(existing.getSummary());
+        chat.setSummarizedUpTo(existing.getSummarizedUpTo());
+    }
+
+    @Override
+    @Transactional
+    public boolean softDelete(UUID id) {
+        boolean deleted = super.softDelete(id);
+        if (deleted) {
+            messageService.softDeleteMessagesByChatId(id);
+        }
+        return deleted;
+    }
+
+    /**
+     * Soft-deletes the given messages of a chat with one UPDATE and returns how many were deleted. The chat's
+     * count and preview are adjusted to match.
+     */
+    @Transactional
+    public int softDeleteMessages(UUID chatId, Collection<UUID> messageIds) {
+        int deleted = messageRepository.bulkUpdateResourceStatusByChatIdAndIds(chatId, messageIds, ResourceStatusEnum.DELETED, ZonedDateTime.now());
+        if (deleted > 0) {
+            var newest = messageRepository.findNewestPageByChatId(chatId, ResourceStatusEnum.ACTIVE, Limit.of(1));
+            MessageResponse last = newest.isEmpty() ? null : newest.getFirst();
+            repository.updateListColumns(chatId, -deleted, ZonedDateTime.now(), last != null ? previewOf(last.getContent()) : null, last != null ? last.getTimestamp() : null);
+        }
+        return deleted;
     }
 
     public Optional<Chat> findChatByIdWithMessages(UUID chatId) {
@@ -37,17 +96,79 @@ public class ChatService extends AbstractResourceService<Chat, ChatRepository> {
         return repository.findAllByCharacterIdAndOwnerIdWithMessages(characterId, ownerId);
     }
 
+    /**
+     * Inserts the message against a reference to the chat and updates the chat row with one UPDATE, so
+     * neither the chat nor its message list is loaded.
+     */
+    @Transactional
+    public Message addMessageToChat(UUID chatId, Message message) {
+        return addMessagesToChat(chatId, List.of(message)).getFirst();
+    }
+
+    /**
+     * Stores the messages of one turn in a single transaction; with {@code hibernate.jdbc.batch_size} set they
+     * go out as one batched INSERT at commit. The messages are the stored instances and get their IDs directly.
+     */
+    @Transactional
+    public List<Message> addMessagesToChat(UUID chatId, List<Message> messages) {
+        Message last = messages.getLast();
+        int updated = repository.updateListColumns(chatId, messages.size(), ZonedDateTime.now(), previewOf(last.getContent()), last.getTimestamp());
+        if (updated == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Chat not found");
+        }
+        Chat chat = repository.getReferenceById(chatId);
+        messages.forEach(message -> message.setChat(chat));
+        return messageRepository.saveAll(messages);
+    }
+
+    public List<ChatSummaryResponse> findChatSummaries(UUID characterId, UUID ownerId) {
+        return repository.findSummariesByCharacterIdAndOwnerId(characterId, ownerId, ResourceStatusEnum.ACTIVE);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillListColumns() {
+        int updated = repository.backfillListColumns(ResourceStatusEnum.ACTIVE);
+        if (updated > 0) {
+            log.info("Backfilled message counts for {} chats", updated);
+        }
+    }
+
+    /**
+     * Updates the chat's list columns for a message appended to it.
+     */
+    public static void recordAppend(Chat chat, Message message) {
+        chat.setMessageCount((chat.getMessageCount() != null ? chat.getMessageCount() : 0) + 1);
+        chat.setLastMessagePreview(previewOf(message.getContent()));
+        chat.setLastMessageAt(message.getTimestamp());
+    }
+
+    /**
+     * Refreshes the chat's preview after {@code message} was edited, if it is still the chat's latest message.
+     */
+    public static void refreshPreview(Message message) {
+        Chat chat = message.getChat();
+        if (chat != null && message.getTimestamp() != null && chat.getLastMessageAt() != null && chat.getLastMessageAt().isEqual(message.getTimestamp())) {
+            chat.setLastMessagePreview(previewOf(message.getContent()));
+        }
+    }
+
+    public static String previewOf(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        int end = Character.isHighSurrogate(content.charAt(PREVIEW_LENGTH - 1)) ? PREVIEW_LENGTH - 1 : PREVIEW_LENGTH;
+        return content.substring(0, end) + "…";
+    }
+
     @Transactional
-    public void addMessageToChat(UUID chatId, Message message) {
-        Chat chat = findByIdOrThrow(chatId);
-        message.setChat(chat);
-        chat.getMessageList().add(message);
-        repository.save(chat);
+    public void updateSummary(UUID chatId, String summary, ZonedDateTime summarizedUpTo) {
+        repository.updateSummary(chatId, summary, summarizedUpTo);
     }
 
     @Transactional
     public int softDeleteChatsByCharacterId(UUID characterId) {
-        return repository.bulkUpdateResourceStatusByCharacterId(characterId, jr.chatbot.enums.ResourceStatusEnum.DELETED);
+        return repository.bulkUpdateResourceStatusByCharacterId(characterId, ResourceStatusEnum.DELETED, ZonedDateTime.now());
     }
 
     public List<Chat> findAllChatsByCharacterId(UUID characterId) {
@@ -0,0 +1,123 @@
+package jr.chatbot.service;
+
+import jakarta.annotation.PreDestroy;
+import jr.chatbot.entity.Chat;
+import jr.chatbot.entity.Message;
+import jr.chatbot.enums.ResourceStatusEnum;
+import jr.chatbot.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folds turns that no longer fit the prompt history into {@link Chat#getSummary()}. Refreshes run off the
+ * request path on a single low-priority thread; each chat has at most one refresh queued.
+ */
+@Service
+public class ConversationSummaryService {
+    private static final Logger log = LoggerFactory.getLogger(ConversationSummaryService.class);
+    private static final ZonedDateTime BEGINNING_OF_TIME = ZonedDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final ChatService chatService;
+    private final MessageService messageService;
+    private final MessageRepository messageRepository;
+    private final boolean enabled;
+    private final int historyMaxMessages;
+    private final int triggerTurns;
+    private final int batchSize;
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+
+    public ConversationSummaryService(ChatService chatService,
+                                      MessageService messageService,
+                                      MessageRepository messageRepository,
+                                      @Value("${app.chat.summary.enabled:true}") boolean enabled,
+                                      @Value("${app.chat.history.max-messages:50}") int historyMaxMessages,
+                                      @Value("${app.chat.summary.trigger-turns:20}") int triggerTurns,
+                                      @Value("${app.chat.summary.batch-size:100}") int batchSize,
+                                      @Value("${app.chat.summary.queue-capacity:256}") int queueCapacity) {
+        this.chatService = chatService;
+        this.messageService = messageService;
+        this.messageRepository = messageRepository;
+        this.enabled = enabled;
+        this.historyMaxMessages = historyMaxMessages;
+        this.triggerTurns = triggerTurns;
+        this.batchSize = batchSize;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "chat-summary");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queues a summary refresh for the chat. A no-op when one is already queued, or when the queue is full;
+     * the next turn schedules it again.
+     */
+    public void scheduleRefresh(UUID chatId) {
+        if (!enabled || chatId == null || !pending.add(chatId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh(chatId);
+                } catch (RuntimeException e) {
+                    log.warn("Summary refresh failed for chat {}: {}", chatId, e.getMessage());
+                } finally {
+                    pending.remove(chatId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(chatId);
+        }
+    }
+
+    /**
+     * Folds the oldest unsummarized turns into the chat summary once the backlog outgrows the prompt history
+     * by {@code app.chat.summary.trigger-turns}. Returns whether the summary changed.
+     */
+    public boolean refresh(UUID chatId) {
+        Chat chat = chatService.findByIdOrThrow(chatId);
+        ZonedDateTime after = chat.getSummarizedUpTo() != null ? chat.getSummarizedUpTo() : BEGINNING_OF_TIME;
+
+        long unsummarized = messageRepository.countTurnsByChatId(chatId, ResourceStatusEnum.ACTIVE, after);
+        if (unsummarized <= historyMaxMessages + triggerTurns) {
+            return false;
+        }
+
+        int foldCount = (int) Math.min(unsummarized - historyMaxMessages, batchSize);
+        List<Message> turns = messageRepository.findOldestTurnsByChatId(chatId, ResourceStatusEnum.ACTIVE, after, Limit.of(foldCount));
+        if (turns.isEmpty()) {
+            return false;
+        }
+
+        String summary = messageService.summarize(chat.getSummary(), turns);
+        if (summary == null || summary.isBlank()) {
+            return false;
+        }
+
+        chatService.updateSummary(chatId, summary, turns.get(turns.size() - 1).getTimestamp());
+        log.debug("Folded {} turns into the summary of chat {}", turns.size(), chatId);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,168 @@
+package jr.chatbot.service;
+
+import jr.chatbot.entity.Character;
+import jr.chatbot.entity.Chat;
+import jr.chatbot.entity.Message;
+import jr.chatbot.enums.MessageRoleEnum;
+import jr.chatbot.util.SingleFlight;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Answers one user turn of a group chat with a reply from every participant. Calls run on virtual threads,
+ * at most {@code app.chat.group.max-parallel} at a time, and share one {@code app.chat.group.deadline}.
+ */
+@Service
+public class GroupChatService {
+    private static final Logger log = LoggerFactory.getLogger(GroupChatService.class);
+
+    private final MessageService messageService;
+    private final ChatService chatService;
+    private final CharacterService characterService;
+    private final UsageService usageService;
+    private final int maxParallel;
+    private final Duration deadline;
+
+    public GroupChatService(MessageService messageService,
+                            ChatService chatService,
+                            CharacterService characterService,
+                            UsageService usageService,
+                            @Value("${app.chat.group.max-parallel:4}") int maxParallel,
+                            @Value("${app.chat.group.deadline:60s}") Duration deadline) {
+        this.messageService = messageService;
+        this.chatService = chatService;
+        this.characterService = characterService;
+        this.usageService = usageService;
+        this.maxParallel = maxParallel;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Replies are stored and passed to {@code onReply} in the order they complete. Characters still pending
+     * at the deadline are cancelled and reported as error replies that are not stored.
+     */
+    public List<Message> respond(UUID ownerId, Chat chat, List<Character> characters, String summary, List<Message> history, String userMessage, Consumer<Message> onReply) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        var permits = new Semaphore(maxParallel);
+        var replies = new ArrayList<Message>();
+        var names = new HashMap<UUID, String>();
+        characters.forEach(character -> names.put(character.getId(), character.getName()));
+
+        // The executor closes only after every call has finished or been cancelled, scoping the fan-out to this method
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var completion = new ExecutorCompletionService<SingleFlight.Result<Message>>(executor);
+            var pending = new LinkedHashMap<Future<SingleFlight.Result<Message>>, Character>();
+            for (var character : characters) {
+                var ownHistory = historyFor(character, history, names);
+                pending.put(completion.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return messageService.getCoalescedAIResponse(chat, character, summary, ownHistory, userMessage);
+                    } finally {
+                        permits.release();
+                    }
+                }), character);
+            }
+
+            try {
+                while (!pending.isEmpty()) {
+                    long remaining = deadlineNanos - System.nanoTime();
+                    var done = remaining > 0 ? completion.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (done == null) {
+                        break;
+                    }
+                    Message reply = settle(ownerId, chat, pending.remove(done), done);
+                    replies.add(reply);
+                    onReply.accept(reply);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            for (var entry : pending.entrySet()) {
+                entry.getKey().cancel(true);
+                Message reply = MessageService.error(entry.getValue().getName() + " did not answer in time");
+                reply.setCharacterId(entry.getValue().getId());
+                replies.add(reply);
+                onReply.accept(reply);
+            }
+        }
+        return replies;
+    }
+
+    /**
+     * Other characters' replies become user turns prefixed with the speaker's name, so each model only sees its
+     * own replies as assistant turns.
+     */
+    /**
+     * Stored turns before {@code message} as {@code character} saw them when it wrote it. In a group chat the
+     * other replies of the same round are left out and earlier replies from other participants are labelled.
+     */
+    public List<Message> historyBefore(Chat chat, Character character, Message message) {
+        var history = new ArrayList<>(messageService.findHistoryBefore(chat, message));
+        if (chat.getParticipantIds().size() < 2) {
+            return history;
+        }
+
+        // Replies of one round are written in parallel, so none of them saw the others
+        while (!history.isEmpty() && history.getLast().getRole() == MessageRoleEnum.ASSISTANT) {
+            history.removeLast();
+        }
+        var names = new HashMap<UUID, String>();
+        for (UUID participantId : chat.getParticipantIds()) {
+            characterService.findById(participantId).ifPresent(participant -> names.put(participant.getId(), participant.getName()));
+        }
+        return historyFor(character, history, names);
+    }
+
+    static List<Message> historyFor(Character character, List<Message> history, Map<UUID, String> names) {
+        var labelled = new ArrayList<Message>(history.size());
+        for (var turn : history) {
+            UUID speaker = turn.getCharacterId();
+            if (turn.getRole() == MessageRoleEnum.ASSISTANT && speaker != null && !speaker.equals(character.getId())) {
+                String name = names.getOrDefault(speaker, "Another character");
+                labelled.add(new Message(MessageRoleEnum.USER, "[" + name + "]: " + turn.getContent(), turn.getTimestamp(), speaker));
+            } else {
+                labelled.add(turn);
+            }
+        }
+        return labelled;
+    }
+
+    // A reply shared with a concurrent identical request is stored by that request
+    private Message settle(UUID ownerId, Chat chat, Character character, Future<SingleFlight.Result<Message>> done) throws InterruptedException {
+        try {
+            var result = done.get();
+            Message reply = result.value();
+            reply.setCharacterId(character.getId());
+            if (!result.shared()) {
+                reply.setOwnerId(ownerId);
+                chatService.addMessageToChat(chat.getId(), reply);
+                usageService.record(chat, reply);
+            }
+            return reply;
+        } catch (ExecutionException e) {
+            log.warn("Group reply from character {} failed: {}", character.getId(), e.getCause().getMessage());
+            Message reply = MessageService.error("Unexpected issue processing AI response");
+            reply.setCharacterId(character.getId());
+            return reply;
+        }
+    }
+}
@@ -1,134 +1,494 @@
 package jr.chatbot.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
+import jr.chatbot.dto.MessagePageResponse;
+import jr.chatbot.dto.MessageResponse;
 import jr.chatbot.dto.openrouter.OpenAIMessage;
+import jr.chatbot.dto.openrouter.OpenRouterChatChunk;
 import jr.chatbot.dto.openrouter.OpenRouterChatRequest;
 import jr.chatbot.dto.openrouter.OpenRouterChatResponse;
 import jr.chatbot.entity.Character;
+import jr.chatbot.entity.Chat;
 import jr.chatbot.entity.Message;
 import jr.chatbot.enums.MessageRoleEnum;
 import jr.chatbot.enums.ResourceStatusEnum;
 import jr.chatbot.repository.MessageRepository;
+import jr.chatbot.service.llm.CircuitOpenException;
+import jr.chatbot.service.llm.CompletionCache;
+import jr.chatbot.service.llm.CompletionSizer;
+import jr.chatbot.service.llm.ContextWindowAssembler;
+import jr.chatbot.service.llm.LlmBackend;
+import jr.chatbot.service.llm.PromptFingerprint;
+import jr.chatbot.service.llm.PromptTooLargeException;
+import jr.chatbot.service.llm.ProviderRouter;
+import jr.chatbot.service.llm.RequestCancelledException;
+import jr.chatbot.service.llm.ResilientLlmClient;
+import jr.chatbot.service.llm.SystemPromptCache;
+import jr.chatbot.service.llm.TokenEstimator;
+import jr.chatbot.util.SingleFlight;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Service
 public class MessageService extends AbstractResourceService<Message, MessageRepository> {
-    @Value("${openrouter.api.key:}")
-    private String apiKey;
+    private static final Logger log = LoggerFactory.getLogger(MessageService.class);
 
-    @Value("${openrouter.api.url:https://openrouter.ai/api/v1/chat/completions}")
-    private String openRouterApiUrl;
+    @Value("${app.chat.history.max-messages:50}")
+    private int historyMaxMessages;
 
-    @Value("${openrouter.model:}")
-    private String openRouterModel;
+    @Value("${app.chat.messages.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.chat.messages.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${app.chat.messages.delete-chunk-size:1000}")
+    private int deleteChunkSize;
+
+    private final ExecutorService cleanupExecutor = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("message-cleanup").factory());
 
     private static final String HEADER_HTTP_REFERER = "HTTP-Referer";
     private static final String HEADER_X_TITLE = "X-Title";
-
-    private final RestTemplate restTemplate;
+    private static final String SSE_DATA_PREFIX = "data:";
+    private static final String SSE_DONE_MARKER = "[DONE]";
+    private static final String ERROR_PREFIX = "[Error: ";
+    private static final String CURSOR_SEPARATOR = "|";
+    private static final String MISSING_API_KEY = "AI API Key is missing. Set OPENROUTER_API_KEY environment variable.";
+    private static final String SUMMARY_PREFIX = "Summary of the earlier conversation:\n";
+    private static final String SUMMARY_INSTRUCTIONS = "You maintain a running summary of a roleplay conversation. Merge the new turns into the existing summary. "
+            + "Keep names, facts, decisions, relationships and open threads; drop small talk. Reply with the updated summary only, in under 400 words.";
+    private static final ZonedDateTime BEGINNING_OF_TIME = ZonedDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final ResilientLlmClient llmClient;
+    private final ProviderRouter providerRouter;
+    private final CompletionSizer completionSizer;
     private final MessageRepository messageRepository;
+    private final ObjectMapper objectMapper;
+    private final CompletionCache completionCache;
+    private final SystemPromptCache systemPromptCache;
+    private final ContextWindowAssembler contextWindowAssembler;
+    private final SingleFlight<String, Message> inFlight = new SingleFlight<>();
 
-    public MessageService(RestTemplate restTemplate, MessageRepository messageRepository) {
+    public MessageService(ResilientLlmClient llmClient, ProviderRouter providerRouter, CompletionSizer completionSizer, MessageRepository messageRepository, ObjectMapper objectMapper, CompletionCache completionCache, SystemPromptCache systemPromptCache, ContextWindowAssembler contextWindowAssembler) {
         super(messageRepository);
-        this.restTemplate = restTemplate;
+        this.llmClient = llmClient;
+        this.providerRouter = providerRouter;
+        this.completionSizer = completionSizer;
         this.messageRepository = messageRepository;
+        this.objectMapper = objectMapper;
+        this.completionCache = completionCache;
+        this.systemPromptCache = systemPromptCache;
+        this.contextWindowAssembler = contextWindowAssembler;
     }
 
     public Optional<Message> findById(UUID id) {
         return messageRepository.findById(id);
     }
 
+    /**
+     * Most recent active turns of a chat in chronological order, newest {@code app.chat.history.max-messages} only.
+     * Turns already folded into the chat summary are skipped.
+     */
+    public List<Message> findRecentHistory(Chat chat) {
+        var after = chat.getSummarizedUpTo() != null ? chat.getSummarizedUpTo() : BEGINNING_OF_TIME;
+        var newestFirst = messageRepository.findRecentTurnsByChatId(chat.getId(), ResourceStatusEnum.ACTIVE, after, Limit.of(historyMaxMessages));
+        var history = new ArrayList<>(newestFirst);
+        Collections.reverse(history);
+        return history;
+    }
+
+    /**
+     * Active turns stored before {@code message}, chronological, same window and summary cut-off as
+     * {@link #findRecentHistory(Chat)}. The extra turn is the prompt the message answered.
+     */
+    public List<Message> findHistoryBefore(Chat chat, Message message) {
+        var after = chat.getSummarizedUpTo() != null ? chat.getSummarizedUpTo() : BEGINNING_OF_TIME;
+        var newestFirst = messageRepository.findRecentTurnsBeforeByChatId(chat.getId(), ResourceStatusEnum.ACTIVE, after, message.getTimestamp(), Limit.of(historyMaxMessages + 1));
+        var history = new ArrayList<>(newestFirst);
+        Collections.reverse(history);
+        return history;
+    }
+
+    /**
+     * One page of a chat's active messages, newest first. {@code cursor} is the previous page's
+     * {@code nextCursor}, or null for the newest page; {@code limit} is capped at {@code app.chat.messages.max-page-size}.
+     */
+    public MessagePageResponse findMessagePage(UUID chatId, String cursor, Integer limit) {
+        int size = Math.clamp(limit != null ? limit : defaultPageSize, 1, maxPageSize);
+        // One extra row tells whether an older page exists
+        var fetchLimit = Limit.of(size + 1);
+
+        List<MessageResponse> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = messageRepository.findNewestPageByChatId(chatId, ResourceStatusEnum.ACTIVE, fetchLimit);
+        } else {
+            var position = decodeCursor(cursor);
+            rows = messageRepository.findPageBeforeByChatId(chatId, ResourceStatusEnum.ACTIVE, position.timestamp(), position.id(), fetchLimit);
+        }
+
+        if (rows.size() <= size) {
+            return new MessagePageResponse(rows, null);
+        }
+        var page = new ArrayList<>(rows.subList(0, size));
+        return new MessagePageResponse(page, encodeCursor(page.getLast()));
+    }
+
+    /**
+     * Appends regenerated alternatives to the message's versions and makes the first of them current.
+     * The original reply is kept as version 0.
+     */
+    @Transactional
+    public Message appendVersions(UUID id, List<String> alternatives) {
+        Message message = messageRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Message not found"));
+
+        var versions = message.getVersions();
+        if (versions.isEmpty()) {
+            versions.add(message.getContent());
+        }
+        int firstNew = versions.size();
+        versions.addAll(alternatives);
+        message.setCurrentVersionIndex(firstNew);
+        message.setContent(versions.get(firstNew));
+
+        return messageRepository.save(message);
+    }
+
+    /**
+     * Overwrites the stored content of a reply that is still streaming; one UPDATE, no entity load.
+     */
+    @Transactional
+    public void checkpoint(UUID id, String content) {
+        messageRepository.updateContent(id, content, ZonedDateTime.now());
+    }
+
+    /**
+     * Replaces a streaming placeholder with the finished reply, keeping the placeholder's row and timestamp.
+     */
+    @Transactional
+    public Message completeStreamedReply(UUID id, Message reply) {
+        Message message = messageRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Message not found"));
+        message.setContent(reply.getContent());
+        message.setModel(reply.getModel());
+        message.setPromptTokens(reply.getPromptTokens());
+        message.setCompletionTokens(reply.getCompletionTokens());
+        message.setEstimatedPromptTokens(reply.getEstimatedPromptTokens());
+        message.setLatencyMs(reply.getLatencyMs());
+        message.setPartial(false);
+        ChatService.refreshPreview(message);
+        return messageRepository.save(message);
+    }
+
+    @Transactional
     public Message updateMessage(UUID id, Message updatedMessage) {
         Message existingMessage = messageRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Message not found"));
 
         existingMessage.setContent(updatedMessage.getContent());
+        ChatService.refreshPreview(existingMessage);
 
         return messageRepository.save(existingMessage);
     }
 
     public Message getAIResponse(Character character, List<Message> history, String userMessage) {
-        if (apiKey == null || apiKey.isBlank()) {
-            return error("AI API Key is missing. Set OPENROUTER_API_KEY environment variable.");
+        return getCoalescedAIResponse(null, character, null, history, userMessage).value();
+    }
+
+    /**
+     * Requests {@code count} independent completions for the same prompt in parallel, bypassing the completion
+     * cache and request coalescing. Failed candidates are dropped, so the result may be shorter than {@code count}.
+     * {@code summary} is the chat summary that precedes {@code history}, or null when the history is not the stored window.
+     */
+    public List<String> generateCandidates(Character character, String summary, List<Message> history, String userMessage, int count) {
+        var route = providerRouter.route(preferredModelOf(character));
+        if (route.isEmpty() || count <= 0) {
+            return List.of();
+        }
+
+        var messages = buildMessages(route.getFirst().model(), character, summary, history, userMessage);
+        var candidates = new ArrayList<String>();
+        // The executor closes only after every call has finished, scoping the fan-out to this method
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<Message>>();
+            for (int i = 0; i < count; i++) {
+                futures.add(executor.submit(() -> parseCompletion(postWithFailover(route, messages))));
+            }
+            for (var future : futures) {
+                try {
+                    Message candidate = future.get();
+                    if (!isError(candidate)) {
+                        candidates.add(candidate.getContent());
+                    }
+                } catch (ExecutionException e) {
+                    log.debug("Regeneration candidate failed: {}", e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return candidates;
+    }
+
+    /**
+     * Folds {@code turns} into {@code previousSummary}. Returns null when the provider call fails,
+     * so callers keep the previous summary.
+     */
+    public String summarize(String previousSummary, List<Message> turns) {
+        var route = providerRouter.route(null);
+        if (route.isEmpty() || turns.isEmpty()) {
+            return null;
         }
 
+        var transcript = new StringBuilder();
+        if (previousSummary != null && !previousSummary.isBlank()) {
+            transcript.append("Existing summary:\n").append(previousSummary).append("\n\n");
+        }
+        transcript.append("New turns:\n");
+        for (var turn : turns) {
+            var role = turn.getRole() != null ? turn.getRole().name().toLowerCase() : "user";
+            transcript.append(role).append(": ").append(turn.getContent()).append("\n");
+        }
+
+        var messages = List.of(new OpenAIMessage("system", SUMMARY_INSTRUCTIONS), new OpenAIMessage("user", transcript.toString()));
+
         try {
-            var requestEntity = buildRequest(character, history, userMessage);
-            var response = restTemplate.postForEntity(openRouterApiUrl, requestEntity, OpenRouterChatResponse.class);
-            return parseResponse(response);
-        } catch (HttpClientErrorException e) {
-            return mapClientError(e);
+            Message result = parseResponse(postWithFailover(route, messages).response());
+            return isError(result) ? null : result.getContent();
         } catch (RestClientException e) {
-            return error("Could not connect to AI Service - " + e.getMessage());
+            log.warn("Conversation summary request failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Concurrent calls for the same chat with the same prompt fingerprint share one upstream completion.
+     * Callers that joined an existing flight get {@code shared == true} and should not persist the reply again.
+     * Throws {@link RequestCancelledException} when the calling thread is interrupted. {@code summary} is as for
+     * {@link #generateCandidates}.
+     */
+    public SingleFlight.Result<Message> getCoalescedAIResponse(Chat chat, Character character, String summary, List<Message> history, String userMessage) {
+        var route = providerRouter.route(preferredModelOf(character));
+        if (route.isEmpty()) {
+            return new SingleFlight.Result<>(error(MISSING_API_KEY), false);
+        }
+
+        try {
+            String model = route.getFirst().model();
+            var messages = buildMessages(model, character, summary, history, userMessage);
+            String fingerprint = PromptFingerprint.of(model, messages);
+
+            if (chat == null) {
+                return new SingleFlight.Result<>(complete(character, route, messages, fingerprint), false);
+            }
+            try {
+                return inFlight.execute(chat.getId() + ":" + fingerprint, () -> complete(character, route, messages, fingerprint));
+            } catch (RequestCancelledException e) {
+                // The flight's own client went away; a caller that joined it and is still waiting runs the completion itself
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                return new SingleFlight.Result<>(complete(character, route, messages, fingerprint), false);
+            }
+        } catch (RequestCancelledException e) {
+            throw e;
         } catch (Exception e) {
-            return error("Unexpected issue processing AI response");
+            return new SingleFlight.Result<>(error("Unexpected issue processing AI response"), false);
         }
     }
 
-    // Helpers
-    private HttpEntity<OpenRouterChatRequest> buildRequest(Character character, List<Message> history, String userMessage) {
-        var payload = new OpenRouterChatRequest();
-        payload.setModel(openRouterModel);
-        payload.setMessages(buildMessages(character, history, userMessage));
-        // Leave optional fields null to use provider defaults
-        // payload.setMaxTokens(8192);
-        // payload.setTemperature(1.0);
+    /**
+     * Streams the reply through {@code onDelta}. Interrupting the calling thread aborts the upstream stream and
+     * throws {@link RequestCancelledException}; deltas already delivered are not retried on another backend, and
+     * the failure is rethrown so the caller keeps the partial reply. {@code summary} is as for {@link #generateCandidates}.
+     */
+    public Message streamAIResponse(Character character, String summary, List<Message> history, String userMessage, Consumer<String> onDelta) {
+        var route = providerRouter.route(preferredModelOf(character));
+        if (route.isEmpty()) {
+            return error(MISSING_API_KEY);
+        }
 
-        return new HttpEntity<>(payload, buildHeaders());
+        try {
+            var messages = buildMessages(route.getFirst().model(), character, summary, history, userMessage);
+            var emitted = new AtomicBoolean();
+            Consumer<String> trackingOnDelta = delta -> {
+                emitted.set(true);
+                onDelta.accept(delta);
+            };
+
+            int promptTokens = TokenEstimator.estimate(messages);
+            RestClientException lastError = null;
+            for (var backend : route) {
+                long start = System.nanoTime();
+                try {
+                    int maxTokens = completionSizer.maxTokensFor(backend.model(), promptTokens);
+                    var reply = llmClient.stream(backend.name(), backend.url(), buildRequest(backend, messages, maxTokens, true), body -> readStream(body, trackingOnDelta));
+                    long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    providerRouter.recordSuccess(backend, latencyMillis);
+                    if (reply.content().isEmpty()) {
+                        return error("Received empty content from AI");
+                    }
+                    return withUsage(assistant(reply.content()), backend, reply.usage(), promptTokens, latencyMillis);
+                } catch (RequestCancelledException e) {
+                    throw e;
+                } catch (RestClientException e) {
+                    recordFailure(backend, e);
+                    lastError = e;
+                    // Failing over after deltas reached the client would splice two different replies
+                    if (emitted.get()) {
+                        throw e;
+                    }
+                }
+            }
+            return mapError(lastError);
+        } catch (RestClientException e) {
+            // Cancellation, or a failure after deltas went out; the caller keeps the partial reply
+            throw e;
+        } catch (Exception e) {
+            return error("Unexpected issue processing AI response");
+        }
     }
 
-    private List<OpenAIMessage> buildMessages(Character character, List<Message> history, String userMessage) {
-        var messages = new ArrayList<OpenAIMessage>();
-        var systemPrompt = buildEnhancedSystemPrompt(character);
-        messages.add(new OpenAIMessage("system", systemPrompt));
+    // Helpers
+    private Message complete(Character character, List<LlmBackend> route, List<OpenAIMessage> messages, String fingerprint) {
+        try {
+            boolean cacheable = isCacheable(character);
+            if (cacheable) {
+                var cached = completionCache.get(fingerprint);
+                if (cached.isPresent()) {
+                    return assistant(cached.get());
+                }
+            }
 
-        if (history != null && !history.isEmpty()) {
-            for (var msg : history) {
-                var role = msg.getRole() != null ? msg.getRole().name().toLowerCase() : "user";
-                messages.add(new OpenAIMessage(role, msg.getContent()));
+            Message result = parseCompletion(postWithFailover(route, messages));
+            if (cacheable && !isError(result)) {
+                completionCache.put(fingerprint, result.getContent());
             }
+            return result;
+        } catch (RequestCancelledException e) {
+            throw e;
+        } catch (RestClientException e) {
+            return mapError(e);
+        } catch (Exception e) {
+            return error("Unexpected issue processing AI response");
         }
+    }
 
-        messages.add(new OpenAIMessage("user", userMessage));
-        return messages;
+    // Tries each backend in route order; throws the last failure when all of them fail
+    // A backend whose context window cannot take the prompt is skipped without a call
+    private Completion postWithFailover(List<LlmBackend> route, List<OpenAIMessage> messages) {
+        int promptTokens = TokenEstimator.estimate(messages);
+        RestClientException lastError = null;
+        for (var backend : route) {
+            long start = System.nanoTime();
+            try {
+                int maxTokens = completionSizer.maxTokensFor(backend.model(), promptTokens);
+                var response = llmClient.post(backend.name(), backend.url(), buildRequest(backend, messages, maxTokens, false));
+                long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                providerRouter.recordSuccess(backend, latencyMillis);
+                return new Completion(response, backend, latencyMillis, promptTokens);
+            } catch (RequestCancelledException e) {
+                throw e;
+            } catch (RestClientException e) {
+                recordFailure(backend, e);
+                lastError = e;
+            }
+        }
+        throw lastError;
     }
 
-    private String buildEnhancedSystemPrompt(Character character) {
-        if (character == null) {
-            return "";
+    private void recordFailure(LlmBackend backend, RestClientException e) {
+        log.debug("LLM backend {} failed: {}", backend.name(), e.getMessage());
+        // No call was made for an open circuit or an oversized prompt, so there is nothing new to learn about the backend
+        if (!(e instanceof CircuitOpenException) && !(e instanceof PromptTooLargeException)) {
+            providerRouter.recordFailure(backend);
         }
+    }
 
-        StringBuilder prompt = new StringBuilder();
+    private Message mapError(RestClientException e) {
+        if (e instanceof PromptTooLargeException tooLarge) {
+            return error("Conversation is too long for the AI model (~" + tooLarge.getPromptTokens() + " tokens, context window " + tooLarge.getContextWindow() + ").");
+        }
+        if (e instanceof HttpClientErrorException clientError) {
+            return mapClientError(clientError);
+        }
+        return error("Could not connect to AI Service - " + e.getMessage());
+    }
 
-        if (character.getSystemPrompt() != null && !character.getSystemPrompt().isBlank()) {
-            prompt.append(character.getSystemPrompt());
+    private HttpEntity<OpenRouterChatRequest> buildRequest(LlmBackend backend, List<OpenAIMessage> messages, int maxTokens, boolean stream) {
+        var payload = new OpenRouterChatRequest();
+        payload.setModel(backend.model());
+        payload.setMessages(messages);
+        payload.setMaxTokens(maxTokens);
+        // Leave temperature null to use the provider default
+
+        var headers = buildHeaders(backend.apiKey());
+        if (stream) {
+            payload.setStream(true);
+            headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
         }
+        return new HttpEntity<>(payload, headers);
+    }
 
-        if (character.getCustomFields() != null && !character.getCustomFields().isEmpty()) {
-            if (!prompt.isEmpty()) {
-                prompt.append("\n\n");
+    private List<OpenAIMessage> buildMessages(String model, Character character, String summary, List<Message> history, String userMessage) {
+        var system = new OpenAIMessage("system", buildEnhancedSystemPrompt(character));
+        var summaryMessage = summary != null && !summary.isBlank() ? new OpenAIMessage("system", SUMMARY_PREFIX + summary) : null;
+
+        var turns = new ArrayList<OpenAIMessage>();
+        if (history != null && !history.isEmpty()) {
+            for (var msg : history) {
+                var role = msg.getRole() != null ? msg.getRole().name().toLowerCase() : "user";
+                turns.add(new OpenAIMessage(role, msg.getContent()));
             }
-            prompt.append("Character Details:\n");
-            character.getCustomFields().forEach((key, value) -> {
-                prompt.append("- ").append(key).append(": ").append(value).append("\n");
-            });
         }
 
-        return prompt.toString();
+        var context = contextWindowAssembler.assemble(model, system, summaryMessage, turns, new OpenAIMessage("user", userMessage));
+        log.debug("Sending ~{} prompt tokens to {} (budget {}, {} older turns dropped)", context.estimatedTokens(), model, context.budget(), context.droppedTurns());
+        return context.messages();
+    }
+
+    private String preferredModelOf(Character character) {
+        return character != null ? character.getPreferredModel() : null;
+    }
+
+    private String buildEnhancedSystemPrompt(Character character) {
+        return systemPromptCache.get(character);
+    }
+
+    private boolean isCacheable(Character character) {
+        return completionCache.isEnabled() && character != null && !Boolean.FALSE.equals(character.getResponseCacheEnabled());
     }
 
-    private HttpHeaders buildHeaders() {
+    private HttpHeaders buildHeaders(String apiKey) {
         var headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setBearerAuth(apiKey);
@@ -137,6 +497,30 @@ public class MessageService extends AbstractResourceService<Message, MessageRepo
         return headers;
     }
 
+    private Message parseCompletion(Completion completion) {
+        Message result = parseResponse(completion.response());
+        if (isError(result)) {
+            return result;
+        }
+        var body = completion.response().getBody();
+        return withUsage(result, completion.backend(), body != null ? body.getUsage() : null, completion.estimatedPromptTokens(), completion.latencyMillis());
+    }
+
+    // Falls back to local estimates when the provider reports no usage, as most streams do
+    private Message withUsage(Message reply, LlmBackend backend, OpenRouterChatResponse.Usage usage, int estimatedPromptTokens, long latencyMillis) {
+        reply.setModel(backend.model());
+        reply.setLatencyMs(latencyMillis);
+        reply.setEstimatedPromptTokens(estimatedPromptTokens);
+        if (usage != null && usage.getTotalTokens() > 0) {
+            reply.setPromptTokens(usage.getPromptTokens());
+            reply.setCompletionTokens(usage.getCompletionTokens());
+        } else {
+            reply.setPromptTokens(estimatedPromptTokens);
+            reply.setCompletionTokens(TokenEstimator.estimate(reply.getContent()));
+        }
+        return reply;
+    }
+
     private Message parseResponse(ResponseEntity<OpenRouterChatResponse> response) {
         if (response == null) {
             return error("Invalid response from AI Service - Response was null");
@@ -159,6 +543,38 @@ public class MessageService extends AbstractResourceService<Message, MessageRepo
         return assistant(aiMessage.getContent());
     }
 
+    private StreamedReply readStream(InputStream body, Consumer<String> onDelta) throws IOException {
+        var content = new StringBuilder();
+        OpenRouterChatResponse.Usage usage = null;
+        try (var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Blank lines separate events and ':' lines are keep-alive comments
+                if (!line.startsWith(SSE_DATA_PREFIX)) {
+                    continue;
+                }
+                String data = line.substring(SSE_DATA_PREFIX.length()).trim();
+                if (SSE_DONE_MARKER.equals(data)) {
+                    break;
+                }
+
+                var chunk = objectMapper.readValue(data, OpenRouterChatChunk.class);
+                if (chunk.getUsage() != null) {
+                    usage = chunk.getUsage();
+                }
+                if (chunk.getChoices() == null || chunk.getChoices().isEmpty()) {
+                    continue;
+                }
+                var delta = chunk.getChoices().getFirst().getDelta();
+                if (delta != null && delta.getContent() != null && !delta.getContent().isEmpty()) {
+                    content.append(delta.getContent());
+                    onDelta.accept(delta.getContent());
+                }
+            }
+        }
+        return new StreamedReply(content.toString(), usage);
+    }
+
     private Message mapClientError(HttpClientErrorException e) {
         switch (e.getStatusCode()) {
             case HttpStatus.UNAUTHORIZED -> {
@@ -174,29 +590,89 @@ public class MessageService extends AbstractResourceService<Message, MessageRepo
                 }
                 return error("AI model not found or unavailable.");
             }
-            default -> throw new IllegalStateException("Unexpected value: " + e.getStatusCode());
+            default -> {
+                return error("AI service rejected the request (" + e.getStatusCode().value() + ").");
+            }
         }
     }
 
-    private Message assistant(String content) {
+    private record Completion(ResponseEntity<OpenRouterChatResponse> response, LlmBackend backend, long latencyMillis, int estimatedPromptTokens) {
+    }
+
+    private record StreamedReply(String content, OpenRouterChatResponse.Usage usage) {
+    }
+
+    private static String encodeCursor(MessageResponse last) {
+        String position = last.getTimestamp().toInstant() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CursorPosition decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(CURSOR_SEPARATOR);
+            var timestamp = ZonedDateTime.ofInstant(Instant.parse(position.substring(0, separator)), ZoneOffset.UTC);
+            return new CursorPosition(timestamp, UUID.fromString(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private record CursorPosition(ZonedDateTime timestamp, UUID id) {
+    }
+
+    private static Message assistant(String content) {
         return new Message(MessageRoleEnum.ASSISTANT, content, ZonedDateTime.now());
     }
 
-    private Message error(String text) {
-        return assistant("[Error: " + text + "]");
+    static Message error(String text) {
+        return assistant(ERROR_PREFIX + text + "]");
+    }
+
+    private boolean isError(Message message) {
+        return message.getContent() == null || message.getContent().startsWith(ERROR_PREFIX);
     }
 
     @Transactional
     public int softDeleteMessagesByCharacterId(UUID characterId) {
-        return messageRepository.bulkUpdateResourceStatusByCharacterId(characterId, ResourceStatusEnum.DELETED);
+        return messageRepository.bulkUpdateResourceStatusByCharacterId(characterId, ResourceStatusEnum.DELETED, ZonedDateTime.now());
     }
 
-    @Transactional
+    /**
+     * Soft-deletes the messages of a chat with one UPDATE. Chats with more than
+     * {@code app.chat.messages.delete-chunk-size} active messages are deleted in chunks on a background thread,
+     * one transaction per chunk, so the caller does not wait for them.
+     */
     public void softDeleteMessagesByChatId(UUID chatId) {
-        List<Message> messages = messageRepository.findByChatId(chatId);
-        for (Message message : messages) {
-            message.setResourceStatus(ResourceStatusEnum.DELETED);
-            messageRepository.save(message);
+        List<UUID> ids = messageRepository.findIdsByChatIdAndResourceStatus(chatId, ResourceStatusEnum.ACTIVE, Limit.of(deleteChunkSize + 1));
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (ids.size() <= deleteChunkSize) {
+            messageRepository.bulkUpdateResourceStatusByChatId(chatId, ResourceStatusEnum.DELETED, ZonedDateTime.now());
+            return;
+        }
+        cleanupExecutor.execute(() -> softDeleteInChunks(chatId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleanupExecutor.shutdown();
+    }
+
+    private void softDeleteInChunks(UUID chatId) {
+        try {
+            int deleted = 0;
+            List<UUID> ids;
+            do {
+                ids = messageRepository.findIdsByChatIdAndResourceStatus(chatId, ResourceStatusEnum.ACTIVE, Limit.of(deleteChunkSize));
+                if (!ids.isEmpty()) {
+                    deleted += messageRepository.bulkUpdateResourceStatusByIds(ids, ResourceStatusEnum.DELETED, ZonedDateTime.now());
+                }
+            } while (ids.size() == deleteChunkSize);
+            log.info("Soft-deleted {} messages of chat {}", deleted, chatId);
+        } catch (RuntimeException e) {
+            log.warn("Soft-deleting the messages of chat {} stopped early: {}", chatId, e.getMessage());
         }
     }
 
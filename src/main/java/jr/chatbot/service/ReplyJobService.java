@@ -0,0 +1,146 @@
+package jr.chatbot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import jr.chatbot.dto.ReplyJobResponse;
+import jr.chatbot.entity.Character;
+import jr.chatbot.entity.Chat;
+import jr.chatbot.entity.Message;
+import jr.chatbot.enums.ReplyJobStatusEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs AI replies outside the request that asked for them. Jobs wait in a bounded queue for one of
+ * {@code app.chat.jobs.concurrency} virtual worker threads; a full queue rejects new jobs with 503.
+ * Job state is kept in memory for {@code app.chat.jobs.retention} after the last update.
+ */
+@Service
+public class ReplyJobService {
+    private static final Logger log = LoggerFactory.getLogger(ReplyJobService.class);
+
+    private final MessageService messageService;
+    private final ChatService chatService;
+    private final ConversationSummaryService conversationSummaryService;
+    private final UsageService usageService;
+    private final ThreadPoolExecutor executor;
+    private final Cache<UUID, ReplyJob> jobs;
+
+    public ReplyJobService(MessageService messageService,
+                           ChatService chatService,
+                           ConversationSummaryService conversationSummaryService,
+                           UsageService usageService,
+                           @Value("${app.chat.jobs.concurrency:16}") int concurrency,
+                           @Value("${app.chat.jobs.queue-capacity:200}") int queueCapacity,
+                           @Value("${app.chat.jobs.retention:10m}") Duration retention) {
+        this.messageService = messageService;
+        this.chatService = chatService;
+        this.conversationSummaryService = conversationSummaryService;
+        this.usageService = usageService;
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofVirtual().name("reply-job-", 0).factory());
+        this.jobs = Caffeine.newBuilder().expireAfterWrite(retention).build();
+    }
+
+    /**
+     * Queues the completion for a user message that is not stored yet. The worker stores the message together
+     * with its reply through {@link ChatService#addMessagesToChat}; a failed job stores neither, and a duplicate
+     * submission that shares an in-flight completion is not stored again.
+     */
+    public ReplyJob submit(UUID ownerId, Chat chat, Character character, String summary, List<Message> history, Message userMessage) {
+        var job = new ReplyJob(UUID.randomUUID(), chat.getId(), ownerId);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, chat, character, summary, history, userMessage));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.getId());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many pending replies, try again shortly");
+        }
+        return job;
+    }
+
+    public Optional<ReplyJob> find(UUID jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ReplyJob job, Chat chat, Character character, String summary, List<Message> history, Message userMessage) {
+        job.status = ReplyJobStatusEnum.RUNNING;
+        try {
+            var reply = messageService.getCoalescedAIResponse(chat, character, summary, history, userMessage.getContent());
+            Message aiResponse = reply.value();
+            if (!reply.shared()) {
+                aiResponse.setOwnerId(job.getOwnerId());
+                chatService.addMessagesToChat(chat.getId(), List.of(userMessage, aiResponse));
+                usageService.record(chat, aiResponse);
+                conversationSummaryService.scheduleRefresh(chat.getId());
+            }
+            job.status = ReplyJobStatusEnum.COMPLETED;
+            job.result.complete(aiResponse);
+        } catch (RuntimeException e) {
+            log.warn("Reply job {} for chat {} failed: {}", job.getId(), chat.getId(), e.getMessage());
+            job.error = "Could not generate a reply";
+            job.status = ReplyJobStatusEnum.FAILED;
+            job.result.completeExceptionally(e);
+        }
+        // Refresh the entry so retention counts from completion
+        jobs.put(job.getId(), job);
+    }
+
+    public static final class ReplyJob {
+        private final UUID id;
+        private final UUID chatId;
+        private final UUID ownerId;
+        private final CompletableFuture<Message> result = new CompletableFuture<>();
+        private volatile ReplyJobStatusEnum status = ReplyJobStatusEnum.QUEUED;
+        private volatile String error;
+
+        private ReplyJob(UUID id, UUID chatId, UUID ownerId) {
+            this.id = id;
+            this.chatId = chatId;
+            this.ownerId = ownerId;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public UUID getOwnerId() {
+            return ownerId;
+        }
+
+        public ReplyJobStatusEnum getStatus() {
+            return status;
+        }
+
+        /**
+         * Completes with the assistant reply, or exceptionally when the job failed.
+         */
+        public CompletableFuture<Message> getResult() {
+            return result;
+        }
+
+        public ReplyJobResponse toResponse() {
+            return new ReplyJobResponse(id, chatId, status, result.isDone() && !result.isCompletedExceptionally() ? result.join() : null, error);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package jr.chatbot.service;
+
+import jr.chatbot.entity.Message;
+import jr.chatbot.util.CancellationHandle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks streamed replies while they are being written. Partial content is checkpointed to the reply's row
+ * every {@code app.chat.stream.checkpoint-chars} characters or {@code checkpoint-interval}, whichever comes
+ * first, and clients can reattach to a live reply by message ID. A reply nobody is subscribed to is
+ * cancelled after {@code reattach-grace}.
+ */
+@Service
+public class StreamingReplyService {
+    private static final Logger log = LoggerFactory.getLogger(StreamingReplyService.class);
+
+    private final MessageService messageService;
+    private final int checkpointChars;
+    private final long checkpointIntervalNanos;
+    private final Duration reattachGrace;
+    private final Map<UUID, LiveReply> live = new ConcurrentHashMap<>();
+
+    public StreamingReplyService(MessageService messageService,
+                                 @Value("${app.chat.stream.checkpoint-chars:400}") int checkpointChars,
+                                 @Value("${app.chat.stream.checkpoint-interval:2s}") Duration checkpointInterval,
+                                 @Value("${app.chat.stream.reattach-grace:15s}") Duration reattachGrace) {
+        this.messageService = messageService;
+        this.checkpointChars = checkpointChars;
+        this.checkpointIntervalNanos = checkpointInterval.toNanos();
+        this.reattachGrace = reattachGrace;
+    }
+
+    /**
+     * Registers a stored, empty placeholder reply; {@code cancellation} is cancelled once no client is left.
+     */
+    public LiveReply start(Message placeholder, CancellationHandle cancellation) {
+        var reply = new LiveReply(placeholder, cancellation);
+        live.put(placeholder.getId(), reply);
+        return reply;
+    }
+
+    public Optional<LiveReply> find(UUID messageId) {
+        return Optional.ofNullable(live.get(messageId));
+    }
+
+    /**
+     * Stores the finished reply in the placeholder's row and sends it to every subscriber.
+     */
+    public Message complete(LiveReply reply, Message result) {
+        Message saved = messageService.completeStreamedReply(reply.getMessageId(), result);
+        reply.finish(saved);
+        return saved;
+    }
+
+    /**
+     * Keeps what was streamed so far as the reply's content; the row stays marked partial.
+     */
+    public Message abandon(LiveReply reply) {
+        String content = reply.content();
+        try {
+            messageService.checkpoint(reply.getMessageId(), content);
+        } catch (RuntimeException e) {
+            log.warn("Could not store partial reply {}: {}", reply.getMessageId(), e.getMessage());
+        }
+        Message partial = reply.placeholder;
+        partial.setContent(content);
+        reply.finish(partial);
+        return partial;
+    }
+
+    /**
+     * Receives the events of a live reply: {@code snapshot} with the content so far, then {@code delta}s,
+     * then {@code done} with the stored message.
+     */
+    public interface Subscriber {
+        /**
+         * Returns false when the client is gone.
+         */
+        boolean send(String event, Object data);
+
+        void complete();
+    }
+
+    public class LiveReply {
+        private final Message placeholder;
+        private final CancellationHandle cancellation;
+        private final StringBuilder content = new StringBuilder();
+        private final List<Subscriber> subscribers = new ArrayList<>();
+        private int checkpointedLength;
+        private long lastCheckpointNanos = System.nanoTime();
+        private boolean cancelPending;
+        private Message result;
+
+        private LiveReply(Message placeholder, CancellationHandle cancellation) {
+            this.placeholder = placeholder;
+            this.cancellation = cancellation;
+        }
+
+        public UUID getMessageId() {
+            return placeholder.getId();
+        }
+
+        /**
+         * A reply that has already finished sends {@code done} right away.
+         */
+        public synchronized void subscribe(Subscriber subscriber) {
+            if (result != null) {
+                if (subscriber.send("done", result)) {
+                    subscriber.complete();
+                }
+                return;
+            }
+            if (subscriber.send("snapshot", Map.of("messageId", getMessageId(), "content", content.toString()))) {
+                subscribers.add(subscriber);
+            }
+        }
+
+        public void unsubscribe(Subscriber subscriber) {
+            boolean abandoned;
+            synchronized (this) {
+                abandoned = subscribers.remove(subscriber) && claimCancelCheck();
+            }
+            if (abandoned) {
+                scheduleCancelIfAbandoned();
+            }
+        }
+
+        /**
+         * Called by the streaming thread for every delta; sends and checkpoints run on that thread outside the lock,
+         * so a slow client does not hold up subscribers joining or leaving.
+         */
+        public void append(String delta) {
+            String checkpoint = null;
+            List<Subscriber> recipients;
+            synchronized (this) {
+                content.append(delta);
+                recipients = List.copyOf(subscribers);
+
+                long now = System.nanoTime();
+                if (content.length() - checkpointedLength >= checkpointChars || now - lastCheckpointNanos >= checkpointIntervalNanos) {
+                    checkpoint = content.toString();
+                    checkpointedLength = content.length();
+                    lastCheckpointNanos = now;
+                }
+            }
+
+            var failed = new ArrayList<Subscriber>();
+            for (var subscriber : recipients) {
+                if (!subscriber.send("delta", Map.of("content", delta))) {
+                    failed.add(subscriber);
+                }
+            }
+            boolean abandoned;
+            synchronized (this) {
+                subscribers.removeAll(failed);
+                abandoned = claimCancelCheck();
+            }
+            if (abandoned) {
+                scheduleCancelIfAbandoned();
+            }
+            if (checkpoint != null) {
+                messageService.checkpoint(getMessageId(), checkpoint);
+            }
+        }
+
+        synchronized String content() {
+            return content.toString();
+        }
+
+        private void finish(Message message) {
+            List<Subscriber> finished;
+            synchronized (this) {
+                result = message;
+                finished = new ArrayList<>(subscribers);
+                subscribers.clear();
+            }
+            live.remove(getMessageId(), this);
+            for (var subscriber : finished) {
+                if (subscriber.send("done", message)) {
+                    subscriber.complete();
+                }
+            }
+        }
+
+        // Claims the single pending cancel check; callers hold the lock
+        private boolean claimCancelCheck() {
+            if (!subscribers.isEmpty() || result != null || cancelPending) {
+                return false;
+            }
+            cancelPending = true;
+            return true;
+        }
+
+        private void scheduleCancelIfAbandoned() {
+            var grace = CompletableFuture.delayedExecutor(reattachGrace.toMillis(), TimeUnit.MILLISECONDS);
+            CompletableFuture.runAsync(() -> {
+                synchronized (this) {
+                    cancelPending = false;
+                    if (!subscribers.isEmpty() || result != null) {
+                        return;
+                    }
+                }
+                cancellation.cancel();
+            }, grace);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package jr.chatbot.service;
+
+import jakarta.annotation.PreDestroy;
+import jr.chatbot.dto.CharacterUsageResponse;
+import jr.chatbot.entity.Chat;
+import jr.chatbot.entity.ChatUsage;
+import jr.chatbot.entity.Message;
+import jr.chatbot.entity.UserDailyUsage;
+import jr.chatbot.repository.ChatUsageRepository;
+import jr.chatbot.repository.UserDailyUsageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token and latency accounting for AI replies. Replies are added to in-memory deltas per chat and per user-day,
+ * and a background flush applies them as increments in one transaction every {@code app.usage.flush-interval},
+ * so totals never need a COUNT/SUM over messages. Reads may lag by up to one interval.
+ */
+@Service
+public class UsageService {
+    private static final Logger log = LoggerFactory.getLogger(UsageService.class);
+
+    private final ChatUsageRepository chatUsageRepository;
+    private final UserDailyUsageRepository userDailyUsageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<ChatKey, Delta> chatDeltas = new ConcurrentHashMap<>();
+    private final Map<UserDailyUsage.Key, Delta> userDeltas = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public UsageService(ChatUsageRepository chatUsageRepository,
+                        UserDailyUsageRepository userDailyUsageRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${app.usage.flush-interval:10s}") Duration flushInterval) {
+        this.chatUsageRepository = chatUsageRepository;
+        this.userDailyUsageRepository = userDailyUsageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "usage-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts a stored assistant reply. Replies without usage (errors, cache hits) are ignored.
+     */
+    public void record(Chat chat, Message reply) {
+        if (chat == null || reply == null || reply.getPromptTokens() == null) {
+            return;
+        }
+        long promptTokens = reply.getPromptTokens();
+        long completionTokens = reply.getCompletionTokens() != null ? reply.getCompletionTokens() : 0;
+        long latencyMs = reply.getLatencyMs() != null ? reply.getLatencyMs() : 0;
+
+        // A group chat reply is charged to the character that wrote it
+        UUID characterId = reply.getCharacterId() != null ? reply.getCharacterId() : chat.getCharacterId();
+        if (characterId != null) {
+            chatDeltas.compute(new ChatKey(chat.getId(), chat.getOwnerId(), characterId),
+                    (key, delta) -> (delta != null ? delta : new Delta()).add(1, promptTokens, completionTokens, latencyMs));
+        }
+
+        UUID userId = reply.getOwnerId() != null ? reply.getOwnerId() : chat.getOwnerId();
+        if (userId != null) {
+            var timestamp = reply.getTimestamp() != null ? reply.getTimestamp() : ZonedDateTime.now();
+            var day = timestamp.withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+            userDeltas.compute(new UserDailyUsage.Key(userId, day),
+                    (key, delta) -> (delta != null ? delta : new Delta()).add(1, promptTokens, completionTokens, latencyMs));
+        }
+    }
+
+    /**
+     * Applies all pending deltas. Deltas that fail to write are merged back and retried on the next flush.
+     */
+    public void flush() {
+        var chats = drain(chatDeltas);
+        var users = drain(userDeltas);
+        if (chats.isEmpty() && users.isEmpty()) {
+            return;
+        }
+
+        var now = ZonedDateTime.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                chats.forEach((key, delta) -> applyChat(key, delta, now));
+                users.forEach((key, delta) -> applyUser(key, delta, now));
+            });
+        } catch (RuntimeException e) {
+            chats.forEach((key, delta) -> chatDeltas.merge(key, delta, Delta::merge));
+            users.forEach((key, delta) -> userDeltas.merge(key, delta, Delta::merge));
+            throw e;
+        }
+    }
+
+    /**
+     * Totals of a chat over all its characters; {@code characterId} is null when several characters answered.
+     */
+    public Optional<ChatUsage> findChatUsage(UUID chatId) {
+        var rows = chatUsageRepository.findByChatId(chatId);
+        if (rows.size() <= 1) {
+            return rows.stream().findFirst();
+        }
+        var total = new ChatUsage();
+        total.setChatId(chatId);
+        total.setOwnerId(rows.getFirst().getOwnerId());
+        for (var row : rows) {
+            total.setReplies(total.getReplies() + row.getReplies());
+            total.setPromptTokens(total.getPromptTokens() + row.getPromptTokens());
+            total.setCompletionTokens(total.getCompletionTokens() + row.getCompletionTokens());
+            total.setTotalLatencyMs(total.getTotalLatencyMs() + row.getTotalLatencyMs());
+            if (total.getUpdatedAt() == null || (row.getUpdatedAt() != null && row.getUpdatedAt().isAfter(total.getUpdatedAt()))) {
+                total.setUpdatedAt(row.getUpdatedAt());
+            }
+        }
+        return Optional.of(total);
+    }
+
+    public List<UserDailyUsage> findUserUsage(UUID userId, LocalDate from, LocalDate to) {
+        return userDailyUsageRepository.findByUserIdBetween(userId, from, to);
+    }
+
+    public List<CharacterUsageResponse> findTopCharacters(int limit) {
+        return chatUsageRepository.findTopCharacters(Limit.of(limit));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flushQuietly();
+    }
+
+    private void applyChat(ChatKey key, Delta delta, ZonedDateTime now) {
+        if (chatUsageRepository.increment(key.chatId(), key.characterId(), delta.replies, delta.promptTokens, delta.completionTokens, delta.latencyMs, now) > 0) {
+            return;
+        }
+        var usage = new ChatUsage();
+        usage.setChatId(key.chatId());
+        usage.setOwnerId(key.ownerId());
+        usage.setCharacterId(key.characterId());
+        usage.setReplies(delta.replies);
+        usage.setPromptTokens(delta.promptTokens);
+        usage.setCompletionTokens(delta.completionTokens);
+        usage.setTotalLatencyMs(delta.latencyMs);
+        usage.setUpdatedAt(now);
+        chatUsageRepository.save(usage);
+    }
+
+    private void applyUser(UserDailyUsage.Key key, Delta delta, ZonedDateTime now) {
+        if (userDailyUsageRepository.increment(key.getUserId(), key.getUsageDate(), delta.replies, delta.promptTokens, delta.completionTokens, delta.latencyMs, now) > 0) {
+            return;
+        }
+        var usage = new UserDailyUsage();
+        usage.setUserId(key.getUserId());
+        usage.setUsageDate(key.getUsageDate());
+        usage.setReplies(delta.replies);
+        usage.setPromptTokens(delta.promptTokens);
+        usage.setCompletionTokens(delta.completionTokens);
+        usage.setTotalLatencyMs(delta.latencyMs);
+        usage.setUpdatedAt(now);
+        userDailyUsageRepository.save(usage);
+    }
+
+    // remove() is atomic with compute(), so a concurrent record() lands either in the drained delta or a fresh one
+    private static <K> Map<K, Delta> drain(Map<K, Delta> deltas) {
+        var drained = new HashMap<K, Delta>();
+        for (K key : new ArrayList<>(deltas.keySet())) {
+            var delta = deltas.remove(key);
+            if (delta != null) {
+                drained.put(key, delta);
+            }
+        }
+        return drained;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Usage flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private record ChatKey(UUID chatId, UUID ownerId, UUID characterId) {
+    }
+
+    private static final class Delta {
+        private long replies;
+        private long promptTokens;
+        private long completionTokens;
+        private long latencyMs;
+
+        private Delta add(long replies, long promptTokens, long completionTokens, long latencyMs) {
+            this.replies += replies;
+            this.promptTokens += promptTokens;
+            this.completionTokens += completionTokens;
+            this.latencyMs += latencyMs;
+            return this;
+        }
+
+        private Delta merge(Delta other) {
+            return add(other.replies, other.promptTokens, other.completionTokens, other.latencyMs);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package jr.chatbot.service.llm;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown without contacting the provider while its circuit is open.
+ */
+public class CircuitOpenException extends RestClientException {
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,48 @@
+package jr.chatbot.service.llm;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jr.chatbot.dto.CacheStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Exact-match cache of assistant replies, keyed on a {@link PromptFingerprint}.
+ */
+@Component
+public class CompletionCache {
+
+    private final boolean enabled;
+    private final Cache<String, String> cache;
+
+    public CompletionCache(@Value("${openrouter.cache.enabled:false}") boolean enabled,
+                           @Value("${openrouter.cache.max-size:10000}") long maxSize,
+                           @Value("${openrouter.cache.ttl:10m}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<String> get(String fingerprint) {
+        return Optional.ofNullable(cache.getIfPresent(fingerprint));
+    }
+
+    public void put(String fingerprint, String content) {
+        cache.put(fingerprint, content);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStatsResponse stats() {
+        var stats = cache.stats();
+        return new CacheStatsResponse(enabled, cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+}
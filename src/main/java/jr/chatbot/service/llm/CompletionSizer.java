@@ -0,0 +1,45 @@
+package jr.chatbot.service.llm;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Sizes {@code max_tokens} from what the estimated prompt leaves of a model's context window, capped at
+ * {@code openrouter.completion.max-tokens}. Prompts that leave less than {@code min-tokens} are rejected locally.
+ */
+@Component
+public class CompletionSizer {
+
+    private final int defaultContextWindow;
+    private final Map<String, Integer> modelContextWindows;
+    private final int maxTokens;
+    private final int minTokens;
+    private final int safetyMargin;
+
+    public CompletionSizer(@Value("${openrouter.completion.default-context-window:32768}") int defaultContextWindow,
+                           @Value("#{${openrouter.completion.model-context-windows:{:}}}") Map<String, Integer> modelContextWindows,
+                           @Value("${openrouter.completion.max-tokens:4096}") int maxTokens,
+                           @Value("${openrouter.completion.min-tokens:256}") int minTokens,
+                           @Value("${openrouter.completion.safety-margin:128}") int safetyMargin) {
+        this.defaultContextWindow = defaultContextWindow;
+        this.modelContextWindows = modelContextWindows;
+        this.maxTokens = maxTokens;
+        this.minTokens = minTokens;
+        this.safetyMargin = safetyMargin;
+    }
+
+    public int contextWindowFor(String model) {
+        return model == null ? defaultContextWindow : modelContextWindows.getOrDefault(model, defaultContextWindow);
+    }
+
+    public int maxTokensFor(String model, int promptTokens) {
+        int contextWindow = contextWindowFor(model);
+        int available = contextWindow - promptTokens - safetyMargin;
+        if (available < minTokens) {
+            throw new PromptTooLargeException(promptTokens, contextWindow);
+        }
+        return Math.min(maxTokens, available);
+    }
+}
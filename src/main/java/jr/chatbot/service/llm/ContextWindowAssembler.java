@@ -0,0 +1,93 @@
+package jr.chatbot.service.llm;
+
+import jr.chatbot.dto.openrouter.OpenAIMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fits a conversation into the prompt token budget of a model. The system prompt and the new user
+ * turn are always kept; history is added newest first until the budget runs out, and the oldest
+ * turn that only partly fits is trimmed from the front.
+ */
+@Component
+public class ContextWindowAssembler {
+
+    private static final int MIN_TRIMMED_TURN_TOKENS = 32;
+    private static final String TRIM_MARKER = "...";
+
+    private final int defaultBudget;
+    private final Map<String, Integer> modelBudgets;
+
+    public ContextWindowAssembler(@Value("${openrouter.context.default-budget:16000}") int defaultBudget,
+                                  @Value("#{${openrouter.context.model-budgets:{:}}}") Map<String, Integer> modelBudgets) {
+        this.defaultBudget = defaultBudget;
+        this.modelBudgets = modelBudgets;
+    }
+
+    public int budgetFor(String model) {
+        return model == null ? defaultBudget : modelBudgets.getOrDefault(model, defaultBudget);
+    }
+
+    public AssembledContext assemble(String model, OpenAIMessage system, List<OpenAIMessage> history, OpenAIMessage userTurn) {
+        return assemble(model, system, null, history, userTurn);
+    }
+
+    /**
+     * A non-null {@code summary} is pinned right after the system prompt, like the system prompt itself.
+     */
+    public AssembledContext assemble(String model, OpenAIMessage system, OpenAIMessage summary, List<OpenAIMessage> history, OpenAIMessage userTurn) {
+        int budget = budgetFor(model);
+        int used = TokenEstimator.REPLY_PRIMING_TOKENS + TokenEstimator.estimate(system) + TokenEstimator.estimate(userTurn);
+        if (summary != null) {
+            used += TokenEstimator.estimate(summary);
+        }
+
+        var kept = new ArrayList<OpenAIMessage>();
+        int i = history.size() - 1;
+        for (; i >= 0; i--) {
+            int cost = TokenEstimator.estimate(history.get(i));
+            if (used + cost > budget) {
+                break;
+            }
+            kept.add(history.get(i));
+            used += cost;
+        }
+
+        int dropped = i + 1;
+        if (i >= 0) {
+            var trimmed = trim(history.get(i), budget - used);
+            if (trimmed != null) {
+                kept.add(trimmed);
+                used += TokenEstimator.estimate(trimmed);
+                dropped--;
+            }
+        }
+        Collections.reverse(kept);
+
+        var messages = new ArrayList<OpenAIMessage>(kept.size() + 3);
+        messages.add(system);
+        if (summary != null) {
+            messages.add(summary);
+        }
+        messages.addAll(kept);
+        messages.add(userTurn);
+        return new AssembledContext(messages, used, dropped, budget);
+    }
+
+    private OpenAIMessage trim(OpenAIMessage turn, int available) {
+        int remaining = available - TokenEstimator.MESSAGE_OVERHEAD_TOKENS - TokenEstimator.estimate(TRIM_MARKER);
+        if (remaining < MIN_TRIMMED_TURN_TOKENS || turn.getContent() == null) {
+            return null;
+        }
+        String content = turn.getContent();
+        return new OpenAIMessage(turn.getRole(), TRIM_MARKER + content.substring(TokenEstimator.tailStart(content, remaining)));
+    }
+
+    public record AssembledContext(List<OpenAIMessage> messages, int estimatedTokens, int droppedTurns, int budget) {
+    }
+}
@@ -0,0 +1,40 @@
+package jr.chatbot.service.llm;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of recent call latencies, used to pick the hedging delay.
+ */
+final class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Nearest-rank percentile of the recorded samples, or -1 when there are none.
+     */
+    synchronized long percentile(double p) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * count);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
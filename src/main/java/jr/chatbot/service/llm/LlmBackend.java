@@ -0,0 +1,15 @@
+package jr.chatbot.service.llm;
+
+/**
+ * One endpoint/model pair requests can be routed to.
+ */
+public record LlmBackend(String name, String url, String apiKey, String model, int weight, int priority) {
+
+    public boolean hasApiKey() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
+    LlmBackend withModel(String otherModel) {
+        return new LlmBackend(name + ":" + otherModel, url, apiKey, otherModel, weight, priority);
+    }
+}
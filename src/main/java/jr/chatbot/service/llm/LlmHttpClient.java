@@ -0,0 +1,223 @@
+package jr.chatbot.service.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jr.chatbot.dto.openrouter.OpenRouterChatRequest;
+import jr.chatbot.dto.openrouter.OpenRouterChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Outbound client for OpenAI-compatible chat completion endpoints.
+ * Uses a single JDK {@link HttpClient} so HTTP/2 connections are kept alive and shared,
+ * and waits for responses on virtual threads instead of request threads.
+ * Failures are reported with the same {@link RestClientException} types RestTemplate uses.
+ */
+@Component
+public class LlmHttpClient {
+
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final Duration totalTimeout;
+
+    public LlmHttpClient(ObjectMapper objectMapper,
+                         @Value("${openrouter.http.connect-timeout:10s}") Duration connectTimeout,
+                         @Value("${openrouter.http.read-timeout:60s}") Duration readTimeout,
+                         @Value("${openrouter.http.total-timeout:5m}") Duration totalTimeout) {
+        this.objectMapper = objectMapper;
+        this.readTimeout = readTimeout;
+        this.totalTimeout = totalTimeout;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    public ResponseEntity<OpenRouterChatResponse> post(String url, HttpEntity<OpenRouterChatRequest> entity) {
+        return await(postAsync(url, entity), url);
+    }
+
+    /**
+     * Cancelling the returned future aborts the underlying exchange.
+     */
+    public CompletableFuture<ResponseEntity<OpenRouterChatResponse>> postAsync(String url, HttpEntity<OpenRouterChatRequest> entity) {
+        var exchange = httpClient.sendAsync(buildRequest(url, entity), HttpResponse.BodyHandlers.ofByteArray());
+        var result = exchange.thenApply(response -> {
+            checkStatus(response.statusCode(), toHeaders(response), response.body());
+            return ResponseEntity.status(response.statusCode()).headers(toHeaders(response)).body(readBody(response.body()));
+        }).orTimeout(totalTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        result.whenComplete((response, e) -> {
+            if (e != null) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sends the request and hands the raw response body to {@code reader} while it is still arriving.
+     * The body is closed once the total timeout elapses, which ends a stalled read. Interrupting the
+     * calling thread closes the body as well, cancelling the upstream stream.
+     */
+    public <T> T stream(String url, HttpEntity<OpenRouterChatRequest> entity, StreamReader<T> reader) {
+        return stream(url, entity, headers -> {}, reader);
+    }
+
+    /**
+     * Same as {@link #stream(String, HttpEntity, StreamReader)}, handing the response headers to
+     * {@code onHeaders} before the body is read.
+     */
+    public <T> T stream(String url, HttpEntity<OpenRouterChatRequest> entity, Consumer<HttpHeaders> onHeaders, StreamReader<T> reader) {
+        var exchange = httpClient.sendAsync(buildRequest(url, entity), HttpResponse.BodyHandlers.ofInputStream());
+        var response = await(exchange, url);
+
+        try (InputStream body = response.body()) {
+            onHeaders.accept(toHeaders(response));
+            if (response.statusCode() >= 400) {
+                checkStatus(response.statusCode(), toHeaders(response), body.readAllBytes());
+            }
+            var deadline = CompletableFuture.delayedExecutor(totalTimeout.toMillis(), TimeUnit.MILLISECONDS, executor);
+            var watchdog = CompletableFuture.runAsync(() -> closeQuietly(body), deadline);
+            try {
+                return reader.read(body);
+            } finally {
+                watchdog.cancel(false);
+            }
+        } catch (IOException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RequestCancelledException("Stream from " + url + " was cancelled");
+            }
+            throw new ResourceAccessException("I/O error while streaming from " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        httpClient.close();
+        executor.close();
+    }
+
+    private HttpRequest buildRequest(String url, HttpEntity<OpenRouterChatRequest> entity) {
+        var builder = HttpRequest.newBuilder(URI.create(url)).timeout(readTimeout).POST(HttpRequest.BodyPublishers.ofByteArray(writeBody(entity.getBody())));
+        entity.getHeaders().forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        return builder.build();
+    }
+
+    <T> T await(CompletableFuture<T> future, String url) {
+        try {
+            return future.get(totalTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RequestCancelledException("Request to " + url + " was cancelled");
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ResourceAccessException("Request to " + url + " timed out after " + totalTimeout);
+        } catch (ExecutionException e) {
+            throw translate(e.getCause(), url);
+        }
+    }
+
+    private RestClientException translate(Throwable cause, String url) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RestClientException restClientException) {
+            return restClientException;
+        }
+        if (cause instanceof UncheckedIOException uncheckedIOException) {
+            cause = uncheckedIOException.getCause();
+        }
+        if (cause instanceof IOException ioException) {
+            return new ResourceAccessException("I/O error on POST request for \"" + url + "\": " + ioException.getMessage(), ioException);
+        }
+        if (cause instanceof TimeoutException) {
+            return new ResourceAccessException("Request to " + url + " timed out after " + totalTimeout);
+        }
+        return new RestClientException("Request to " + url + " failed", cause);
+    }
+
+    private void checkStatus(int status, HttpHeaders headers, byte[] body) {
+        HttpStatusCode statusCode = HttpStatusCode.valueOf(status);
+        if (statusCode.is4xxClientError()) {
+            throw HttpClientErrorException.create(statusCode, "", headers, body, StandardCharsets.UTF_8);
+        }
+        if (statusCode.is5xxServerError()) {
+            throw HttpServerErrorException.create(statusCode, "", headers, body, StandardCharsets.UTF_8);
+        }
+        if (status >= 400) {
+            throw new UnknownHttpStatusCodeException(status, "", headers, body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private HttpHeaders toHeaders(HttpResponse<?> response) {
+        var headers = new HttpHeaders();
+        response.headers().map().forEach(headers::addAll);
+        return headers;
+    }
+
+    private byte[] writeBody(OpenRouterChatRequest body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new RestClientException("Could not serialize chat request", e);
+        }
+    }
+
+    private OpenRouterChatResponse readBody(byte[] body) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(body, OpenRouterChatResponse.class);
+        } catch (IOException e) {
+            throw new RestClientException("Could not parse chat response", e);
+        }
+    }
+
+    private void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+
+    @FunctionalInterface
+    public interface StreamReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+}
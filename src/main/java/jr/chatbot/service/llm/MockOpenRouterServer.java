@@ -0,0 +1,262 @@
+package jr.chatbot.service.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jr.chatbot.config.MockOpenRouterProperties;
+import jr.chatbot.dto.openrouter.OpenAIMessage;
+import jr.chatbot.dto.openrouter.OpenRouterChatChunk;
+import jr.chatbot.dto.openrouter.OpenRouterChatRequest;
+import jr.chatbot.dto.openrouter.OpenRouterChatResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for OpenRouter's {@code /api/v1/chat/completions}, for load tests and offline runs.
+ * Speaks both the JSON and the SSE streaming protocol, with configurable latency, token rate, echo or filler
+ * replies and random error injection. A last user message containing {@code [mock:429]} (or any other status)
+ * forces that status for a single request.
+ */
+public class MockOpenRouterServer {
+    private static final Logger log = LoggerFactory.getLogger(MockOpenRouterServer.class);
+
+    public static final String COMPLETIONS_PATH = "/api/v1/chat/completions";
+    private static final Pattern FORCED_STATUS = Pattern.compile("\\[mock:(\\d{3})]");
+    private static final Pattern TOKEN_BOUNDARY = Pattern.compile("(?<=\\s)");
+    private static final double Z_99 = 2.3263;
+    private static final String LOREM = "lorem ipsum dolor sit amet consectetur adipiscing elit sed do eiusmod tempor incididunt ut labore et dolore magna aliqua";
+
+    private final MockOpenRouterProperties properties;
+    private final ObjectMapper objectMapper;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MockOpenRouterServer(MockOpenRouterProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    public void start() throws IOException {
+        executor = properties.getWorkerThreads() > 0 ? Executors.newFixedThreadPool(properties.getWorkerThreads()) : Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), properties.getPort()), 0);
+        server.setExecutor(executor);
+        server.createContext(COMPLETIONS_PATH, this::handle);
+        server.start();
+        log.info("Mock OpenRouter listening on {}", getCompletionsUrl());
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.close();
+        }
+    }
+
+    public String getCompletionsUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + COMPLETIONS_PATH;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+                sendError(exchange, 401, "No auth credentials found");
+                return;
+            }
+
+            var request = objectMapper.readValue(exchange.getRequestBody(), OpenRouterChatRequest.class);
+            String prompt = lastUserMessage(request.getMessages());
+
+            sleep(firstByteLatency());
+
+            Integer status = errorStatus(prompt);
+            if (status != null) {
+                sendError(exchange, status, errorMessage(status));
+                return;
+            }
+
+            var tokens = TOKEN_BOUNDARY.split(reply(prompt));
+            var usage = usage(request.getMessages(), tokens.length);
+            if (Boolean.TRUE.equals(request.getStream())) {
+                stream(exchange, request.getModel(), tokens, usage);
+            } else {
+                sleep(generationTime(tokens.length));
+                complete(exchange, request.getModel(), String.join("", tokens), usage);
+            }
+        } catch (IOException e) {
+            // Client went away mid-response; nothing to clean up
+            log.debug("Mock OpenRouter exchange aborted: {}", e.getMessage());
+        }
+    }
+
+    private void complete(HttpExchange exchange, String model, String content, OpenRouterChatResponse.Usage usage) throws IOException {
+        var choice = new OpenRouterChatResponse.Choice();
+        choice.setMessage(new OpenAIMessage("assistant", content));
+        choice.setFinishReason("stop");
+
+        var response = new OpenRouterChatResponse();
+        response.setId(generationId());
+        response.setObject("chat.completion");
+        response.setCreated(System.currentTimeMillis() / 1000);
+        response.setModel(model);
+        response.setChoices(List.of(choice));
+        response.setUsage(usage);
+
+        byte[] body = objectMapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void stream(HttpExchange exchange, String model, String[] tokens, OpenRouterChatResponse.Usage usage) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        String id = generationId();
+        long perTokenNanos = (long) (1e9 / Math.max(properties.getTokensPerSecond(), 0.001));
+        OutputStream out = exchange.getResponseBody();
+        writeEvent(out, ": OPENROUTER PROCESSING\n\n");
+
+        for (String token : tokens) {
+            sleep(Duration.ofNanos(perTokenNanos));
+            writeEvent(out, "data: " + objectMapper.writeValueAsString(chunk(id, model, token, null, null)) + "\n\n");
+        }
+        writeEvent(out, "data: " + objectMapper.writeValueAsString(chunk(id, model, null, "stop", usage)) + "\n\n");
+        writeEvent(out, "data: [DONE]\n\n");
+    }
+
+    private OpenRouterChatChunk chunk(String id, String model, String content, String finishReason, OpenRouterChatResponse.Usage usage) {
+        var choice = new OpenRouterChatChunk.Choice();
+        choice.setDelta(new OpenAIMessage("assistant", content));
+        choice.setFinishReason(finishReason);
+
+        var chunk = new OpenRouterChatChunk();
+        chunk.setId(id);
+        chunk.setModel(model);
+        chunk.setChoices(List.of(choice));
+        chunk.setUsage(usage);
+        return chunk;
+    }
+
+    private void writeEvent(OutputStream out, String event) throws IOException {
+        out.write(event.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(Map.of("error", Map.of("code", status, "message", message)));
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (status == 429) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private Integer errorStatus(String prompt) {
+        var forced = FORCED_STATUS.matcher(prompt);
+        if (forced.find()) {
+            return Integer.parseInt(forced.group(1));
+        }
+        var statuses = properties.getErrorStatuses();
+        if (!statuses.isEmpty() && ThreadLocalRandom.current().nextDouble() < properties.getErrorRate()) {
+            return statuses.get(ThreadLocalRandom.current().nextInt(statuses.size()));
+        }
+        return null;
+    }
+
+    private static String errorMessage(int status) {
+        return switch (status) {
+            case 401 -> "User not found.";
+            case 404 -> "No endpoints found matching your data policy (Free model publication). Configure: https://openrouter.ai/settings/privacy";
+            case 429 -> "Rate limit exceeded: free-models-per-min.";
+            default -> status >= 500 ? "Provider returned error" : "Mock error";
+        };
+    }
+
+    private String reply(String prompt) {
+        if (properties.getReplyMode() == MockOpenRouterProperties.ReplyMode.ECHO) {
+            return "Echo: " + prompt;
+        }
+        var words = LOREM.split(" ");
+        var reply = new StringBuilder();
+        for (int i = 0; i < properties.getReplyTokens(); i++) {
+            reply.append(i == 0 ? "" : " ").append(words[i % words.length]);
+        }
+        return reply.toString();
+    }
+
+    private Duration firstByteLatency() {
+        long medianNanos = properties.getLatencyMedian().toNanos();
+        var random = ThreadLocalRandom.current();
+        return switch (properties.getLatencyDistribution()) {
+            case FIXED -> properties.getLatencyMedian();
+            case UNIFORM -> Duration.ofNanos(medianNanos == 0 ? 0 : random.nextLong(2 * medianNanos + 1));
+            case LOGNORMAL -> {
+                if (medianNanos == 0) {
+                    yield Duration.ZERO;
+                }
+                double sigma = Math.max(0, Math.log((double) properties.getLatencyP99().toNanos() / medianNanos) / Z_99);
+                yield Duration.ofNanos((long) (medianNanos * Math.exp(sigma * random.nextGaussian())));
+            }
+        };
+    }
+
+    private Duration generationTime(int tokens) {
+        return Duration.ofNanos((long) (tokens * 1e9 / Math.max(properties.getTokensPerSecond(), 0.001)));
+    }
+
+    private static OpenRouterChatResponse.Usage usage(List<OpenAIMessage> messages, int completionTokens) {
+        var usage = new OpenRouterChatResponse.Usage();
+        usage.setPromptTokens(messages != null ? TokenEstimator.estimate(messages) : 0);
+        usage.setCompletionTokens(completionTokens);
+        usage.setTotalTokens(usage.getPromptTokens() + completionTokens);
+        return usage;
+    }
+
+    private static String lastUserMessage(List<OpenAIMessage> messages) {
+        if (messages == null) {
+            return "";
+        }
+        for (var message : new ArrayList<>(messages).reversed()) {
+            if ("user".equals(message.getRole()) && message.getContent() != null) {
+                return message.getContent();
+            }
+        }
+        return "";
+    }
+
+    private static String generationId() {
+        return "gen-mock-" + UUID.randomUUID();
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
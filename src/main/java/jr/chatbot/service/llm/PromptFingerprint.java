@@ -0,0 +1,56 @@
+package jr.chatbot.service.llm;
+
+import jr.chatbot.dto.openrouter.OpenAIMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * SHA-256 over the model and the full prompt. Whitespace is collapsed in every message and the
+ * final user turn is also case-folded, so "Hi " and "hi" fingerprint the same while the rest of
+ * the prompt must match exactly.
+ */
+public final class PromptFingerprint {
+
+    private static final byte SEPARATOR = 0;
+
+    private PromptFingerprint() {
+    }
+
+    public static String of(String model, List<OpenAIMessage> messages) {
+        MessageDigest digest = sha256();
+        update(digest, model);
+        for (int i = 0; i < messages.size(); i++) {
+            var message = messages.get(i);
+            String content = normalize(message.getContent());
+            if (i == messages.size() - 1) {
+                content = content.toLowerCase();
+            }
+            update(digest, message.getRole());
+            update(digest, content);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String normalize(String content) {
+        return content == null ? "" : content.strip().replaceAll("\\s+", " ");
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update(SEPARATOR);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
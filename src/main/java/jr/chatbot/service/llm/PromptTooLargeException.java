@@ -0,0 +1,26 @@
+package jr.chatbot.service.llm;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Raised before sending when the estimated prompt leaves no room for a reply in the model's context window.
+ */
+public class PromptTooLargeException extends RestClientException {
+
+    private final int promptTokens;
+    private final int contextWindow;
+
+    public PromptTooLargeException(int promptTokens, int contextWindow) {
+        super("Prompt of ~" + promptTokens + " tokens does not fit a " + contextWindow + " token context window");
+        this.promptTokens = promptTokens;
+        this.contextWindow = contextWindow;
+    }
+
+    public int getPromptTokens() {
+        return promptTokens;
+    }
+
+    public int getContextWindow() {
+        return contextWindow;
+    }
+}
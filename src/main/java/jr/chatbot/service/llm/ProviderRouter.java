@@ -0,0 +1,146 @@
+package jr.chatbot.service.llm;
+
+import jr.chatbot.config.LlmProviderProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Orders the configured backends for each request. Lower priority values go first; within a priority, backends
+ * are ranked by EWMA latency inflated by their recent error rate and divided by weight. Error rates decay while
+ * a backend is idle, so a demoted backend gets probed again once it has been left alone for a while.
+ */
+@Component
+public class ProviderRouter {
+
+    private final List<LlmBackend> backends;
+    private final double alpha;
+    private final double errorPenalty;
+    private final long errorHalfLifeNanos;
+    private final LongSupplier clock;
+    private final Map<String, AtomicReference<Stats>> stats = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProviderRouter(LlmProviderProperties properties,
+                          @Value("${openrouter.api.key:}") String apiKey,
+                          @Value("${openrouter.api.url:https://openrouter.ai/api/v1/chat/completions}") String apiUrl,
+                          @Value("${openrouter.model:}") String model,
+                          @Value("${openrouter.routing.ewma-alpha:0.2}") double alpha,
+                          @Value("${openrouter.routing.error-penalty:10}") double errorPenalty,
+                          @Value("${openrouter.routing.error-half-life:1m}") Duration errorHalfLife) {
+        this(toBackends(properties, apiKey, apiUrl, model), alpha, errorPenalty, errorHalfLife, System::nanoTime);
+    }
+
+    public ProviderRouter(List<LlmBackend> backends, double alpha, double errorPenalty, Duration errorHalfLife, LongSupplier clock) {
+        this.backends = List.copyOf(backends);
+        this.alpha = alpha;
+        this.errorPenalty = errorPenalty;
+        this.errorHalfLifeNanos = Math.max(1, errorHalfLife.toNanos());
+        this.clock = clock;
+    }
+
+    /**
+     * Backends to try, best first. A character's preferred model is pinned to the front; when no configured
+     * backend serves it, it is sent to the best-ranked backend's endpoint. Backends without an API key are skipped.
+     */
+    public List<LlmBackend> route(String preferredModel) {
+        long now = clock.getAsLong();
+        var ranked = new ArrayList<LlmBackend>();
+        for (var backend : backends) {
+            if (backend.hasApiKey()) {
+                ranked.add(backend);
+            }
+        }
+        ranked.sort(Comparator.comparingInt(LlmBackend::priority).thenComparingDouble(backend -> score(backend, now)));
+
+        if (preferredModel == null || preferredModel.isBlank() || ranked.isEmpty()) {
+            return ranked;
+        }
+
+        var pinned = new ArrayList<LlmBackend>();
+        var rest = new ArrayList<LlmBackend>();
+        for (var backend : ranked) {
+            (preferredModel.equals(backend.model()) ? pinned : rest).add(backend);
+        }
+        if (pinned.isEmpty()) {
+            pinned.add(ranked.getFirst().withModel(preferredModel));
+        }
+        pinned.addAll(rest);
+        return pinned;
+    }
+
+    public void recordSuccess(LlmBackend backend, long latencyMillis) {
+        update(backend, latencyMillis, 0);
+    }
+
+    public void recordFailure(LlmBackend backend) {
+        update(backend, -1, 1);
+    }
+
+    List<LlmBackend> backends() {
+        return backends;
+    }
+
+    private void update(LlmBackend backend, long latencyMillis, double error) {
+        var ref = stats.computeIfAbsent(backend.name(), name -> new AtomicReference<>(Stats.EMPTY));
+        long now = clock.getAsLong();
+        while (true) {
+            Stats current = ref.get();
+            double latency = current.latencyMillis();
+            if (latencyMillis >= 0) {
+                latency = latency < 0 ? latencyMillis : latency + alpha * (latencyMillis - latency);
+            }
+            double errorRate = decayedErrorRate(current, now);
+            errorRate += alpha * (error - errorRate);
+            if (ref.compareAndSet(current, new Stats(latency, errorRate, now))) {
+                return;
+            }
+        }
+    }
+
+    // Unmeasured backends score zero so they get tried before established ones
+    private double score(LlmBackend backend, long now) {
+        var ref = stats.get(backend.name());
+        if (ref == null) {
+            return 0;
+        }
+        Stats current = ref.get();
+        double latency = Math.max(current.latencyMillis(), 1);
+        return latency * (1 + errorPenalty * decayedErrorRate(current, now)) / Math.max(1, backend.weight());
+    }
+
+    private double decayedErrorRate(Stats current, long now) {
+        if (current.errorRate() == 0) {
+            return 0;
+        }
+        double halfLives = (double) (now - current.updatedAt()) / errorHalfLifeNanos;
+        return current.errorRate() * Math.pow(0.5, halfLives);
+    }
+
+    private static List<LlmBackend> toBackends(LlmProviderProperties properties, String apiKey, String apiUrl, String model) {
+        if (properties.getProviders().isEmpty()) {
+            return List.of(new LlmBackend("default", apiUrl, apiKey, model, 1, 0));
+        }
+        var backends = new ArrayList<LlmBackend>();
+        for (var provider : properties.getProviders()) {
+            String name = provider.getName() != null ? provider.getName() : provider.getModel() + "@" + provider.getUrl();
+            String url = provider.getUrl() != null ? provider.getUrl() : apiUrl;
+            String key = provider.getApiKey() != null ? provider.getApiKey() : apiKey;
+            backends.add(new LlmBackend(name, url, key, provider.getModel(), provider.getWeight(), provider.getPriority()));
+        }
+        return backends;
+    }
+
+    private record Stats(double latencyMillis, double errorRate, long updatedAt) {
+        static final Stats EMPTY = new Stats(-1, 0, 0);
+    }
+}
@@ -0,0 +1,212 @@
+package jr.chatbot.service.llm;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Paces calls per backend from the rate-limit headers its responses carry. Once the remaining request budget
+ * drops to {@code low-watermark} of the limit, calls are spaced evenly over the time left until the reset;
+ * an exhausted budget holds calls until then and releases them one slot apart, and a {@code Retry-After}
+ * holds every call until it passes. No single wait exceeds
+ * {@code max-delay}. Understands the OpenAI ({@code x-ratelimit-*-requests}) and OpenRouter
+ * ({@code x-ratelimit-*}) header forms.
+ */
+@Component
+public class RateLimitPacer {
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|s|m|h)");
+
+    private final boolean enabled;
+    private final double lowWatermark;
+    private final long maxDelayNanos;
+    private final LongSupplier clock;
+    private final LongSupplier wallClock;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RateLimitPacer(@Value("${openrouter.pacing.enabled:true}") boolean enabled,
+                          @Value("${openrouter.pacing.low-watermark:0.2}") double lowWatermark,
+                          @Value("${openrouter.pacing.max-delay:10s}") Duration maxDelay) {
+        this(enabled, lowWatermark, maxDelay, System::nanoTime, System::currentTimeMillis);
+    }
+
+    RateLimitPacer(boolean enabled, double lowWatermark, Duration maxDelay, LongSupplier clock, LongSupplier wallClock) {
+        this.enabled = enabled;
+        this.lowWatermark = lowWatermark;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.clock = clock;
+        this.wallClock = wallClock;
+    }
+
+    /**
+     * Waits for the backend's next slot.
+     */
+    public void acquire(String backend) {
+        long waitNanos = reserve(backend);
+        long deadline = System.nanoTime() + waitNanos;
+        long remaining = waitNanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RequestCancelledException("Cancelled while pacing calls to " + backend);
+            }
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Takes the backend's next slot and returns how long the caller must wait for it, in nanoseconds.
+     */
+    long reserve(String backend) {
+        if (!enabled) {
+            return 0;
+        }
+        return budget(backend).reserve(clock.getAsLong());
+    }
+
+    /**
+     * Learns the backend's budget from a response or error; headers without rate-limit fields are ignored.
+     */
+    public void update(String backend, HttpHeaders headers) {
+        if (!enabled || headers == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long remaining = parseCount(first(headers, "x-ratelimit-remaining-requests", "x-ratelimit-remaining"));
+        long limit = parseCount(first(headers, "x-ratelimit-limit-requests", "x-ratelimit-limit"));
+        long resetNanos = parseReset(first(headers, "x-ratelimit-reset-requests", "x-ratelimit-reset"));
+        long retryAfterNanos = parseRetryAfter(headers.getFirst(HttpHeaders.RETRY_AFTER));
+        if (remaining < 0 && retryAfterNanos < 0) {
+            return;
+        }
+        budget(backend).update(now, limit, remaining, resetNanos, retryAfterNanos);
+    }
+
+    private Budget budget(String backend) {
+        return budgets.computeIfAbsent(backend, name -> new Budget(clock.getAsLong()));
+    }
+
+    private static String first(HttpHeaders headers, String name, String fallback) {
+        String value = headers.getFirst(name);
+        return value != null ? value : headers.getFirst(fallback);
+    }
+
+    private static long parseCount(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, (long) Double.parseDouble(value.trim()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Epoch millis or seconds (OpenRouter), seconds from now, or a Go-style duration such as "6m0s" (OpenAI)
+    private long parseReset(String value) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        value = value.trim();
+        try {
+            double number = Double.parseDouble(value);
+            if (number > 1e12) {
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(0, (long) number - wallClock.getAsLong()));
+            }
+            if (number > 1e9) {
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(0, (long) (number * 1000) - wallClock.getAsLong()));
+            }
+            return (long) (number * 1e9);
+        } catch (NumberFormatException e) {
+            return parseDuration(value);
+        }
+    }
+
+    private static long parseDuration(String value) {
+        var matcher = DURATION_PART.matcher(value);
+        double nanos = 0;
+        boolean matched = false;
+        while (matcher.find()) {
+            matched = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            nanos += switch (matcher.group(2)) {
+                case "ms" -> amount * 1e6;
+                case "s" -> amount * 1e9;
+                case "m" -> amount * 60e9;
+                default -> amount * 3600e9;
+            };
+        }
+        return matched ? (long) nanos : -1;
+    }
+
+    // HTTP-date values are left to the retry backoff
+    private static long parseRetryAfter(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class Budget {
+        private long limit = -1;
+        private long remaining = -1;
+        private long resetAt;
+        private boolean resetKnown;
+        private long blockedUntil;
+        private long nextSlot;
+        private long slotNanos;
+
+        Budget(long now) {
+            this.resetAt = now;
+            this.blockedUntil = now;
+            this.nextSlot = now;
+        }
+
+        synchronized void update(long now, long limit, long remaining, long resetNanos, long retryAfterNanos) {
+            if (retryAfterNanos >= 0) {
+                blockedUntil = Math.max(blockedUntil, now + retryAfterNanos);
+            }
+            if (remaining >= 0) {
+                this.remaining = remaining;
+                this.limit = limit;
+                this.resetKnown = resetNanos >= 0;
+                this.resetAt = now + Math.max(0, resetNanos);
+                this.slotNanos = Math.max(0, resetNanos) / Math.max(1, limit);
+            }
+        }
+
+        synchronized long reserve(long now) {
+            long start = Math.max(now, blockedUntil);
+            // Counts are only trusted until the window they describe resets
+            if (remaining >= 0 && resetKnown && resetAt - now > 0) {
+                long lowMark = limit > 0 ? (long) Math.ceil(limit * lowWatermark) : 1;
+                if (remaining == 0) {
+                    // Queued callers take consecutive slots of the next window rather than all waking at the reset
+                    start = Math.max(start, Math.max(resetAt, nextSlot));
+                    nextSlot = start + slotNanos;
+                } else if (remaining <= lowMark) {
+                    start = Math.max(start, nextSlot);
+                    nextSlot = start + (resetAt - now) / remaining;
+                    remaining--;
+                } else {
+                    remaining--;
+                }
+            }
+            return Math.min(start - now, maxDelayNanos);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package jr.chatbot.service.llm;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown when the thread waiting on a provider call is interrupted because the caller no longer wants
+ * the reply. The outbound exchange has been aborted; the call is neither retried nor failed over.
+ */
+public class RequestCancelledException extends RestClientException {
+
+    public RequestCancelledException(String message) {
+        super(message);
+    }
+}
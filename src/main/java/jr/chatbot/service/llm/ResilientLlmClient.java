@@ -0,0 +1,240 @@
+package jr.chatbot.service.llm;
+
+import jr.chatbot.dto.openrouter.OpenRouterChatRequest;
+import jr.chatbot.dto.openrouter.OpenRouterChatResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resilience layer over {@link LlmHttpClient}: retries 429, 5xx and I/O failures with jittered exponential
+ * backoff, fails fast through a {@link CircuitBreaker} while a backend is down, and optionally hedges slow
+ * calls with a second request once the recent p95 latency has passed. Every call first waits for its slot in
+ * the {@link RateLimitPacer}, which learns from the rate-limit headers of each response. Breakers and latency
+ * windows are kept per backend name.
+ */
+@Component
+public class ResilientLlmClient {
+    private static final Logger log = LoggerFactory.getLogger(ResilientLlmClient.class);
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    private final LlmHttpClient client;
+    private final RateLimitPacer pacer;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final boolean hedgingEnabled;
+    private final long hedgeMinDelayMillis;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    public ResilientLlmClient(LlmHttpClient client,
+                              RateLimitPacer pacer,
+                              @Value("${openrouter.resilience.max-attempts:3}") int maxAttempts,
+                              @Value("${openrouter.resilience.initial-backoff:500ms}") Duration initialBackoff,
+                              @Value("${openrouter.resilience.max-backoff:8s}") Duration maxBackoff,
+                              @Value("${openrouter.resilience.circuit.failure-threshold:5}") int failureThreshold,
+                              @Value("${openrouter.resilience.circuit.open-duration:30s}") Duration openDuration,
+                              @Value("${openrouter.resilience.hedge.enabled:false}") boolean hedgingEnabled,
+                              @Value("${openrouter.resilience.hedge.min-delay:2s}") Duration hedgeMinDelay) {
+        this.client = client;
+        this.pacer = pacer;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgeMinDelayMillis = hedgeMinDelay.toMillis();
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    public ResponseEntity<OpenRouterChatResponse> post(String backend, String url, HttpEntity<OpenRouterChatRequest> entity) {
+        var circuitBreaker = circuitBreaker(backend);
+        for (int attempt = 1; ; attempt++) {
+            pacer.acquire(backend);
+            acquirePermit(circuitBreaker);
+            long start = System.nanoTime();
+            try {
+                var response = hedgingEnabled ? hedgedPost(backend, url, entity) : client.post(url, entity);
+                pacer.update(backend, response.getHeaders());
+                circuitBreaker.onSuccess();
+                latencyWindow(backend).record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return response;
+            } catch (RequestCancelledException e) {
+                circuitBreaker.onCancel();
+                throw e;
+            } catch (RestClientException e) {
+                if (e instanceof RestClientResponseException responseException) {
+                    pacer.update(backend, responseException.getResponseHeaders());
+                }
+                if (!isRetryable(e)) {
+                    // The provider answered; a bad request says nothing about its health
+                    circuitBreaker.onSuccess();
+                    throw e;
+                }
+                circuitBreaker.onFailure();
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                long backoff = backoffMillis(attempt, e);
+                log.debug("LLM call attempt {} failed ({}), retrying in {} ms", attempt, e.getMessage(), backoff);
+                sleep(backoff);
+            }
+        }
+    }
+
+    /**
+     * Streams are not retried once started since deltas may already have reached the client,
+     * but they still go through the circuit breaker.
+     */
+    public <T> T stream(String backend, String url, HttpEntity<OpenRouterChatRequest> entity, LlmHttpClient.StreamReader<T> reader) {
+        var circuitBreaker = circuitBreaker(backend);
+        pacer.acquire(backend);
+        acquirePermit(circuitBreaker);
+        try {
+            T result = client.stream(url, entity, headers -> pacer.update(backend, headers), reader);
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (RequestCancelledException e) {
+            circuitBreaker.onCancel();
+            throw e;
+        } catch (RestClientException e) {
+            if (e instanceof RestClientResponseException responseException) {
+                pacer.update(backend, responseException.getResponseHeaders());
+            }
+            if (isRetryable(e)) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            throw e;
+        }
+    }
+
+    CircuitBreaker.State circuitState(String backend) {
+        return circuitBreaker(backend).state();
+    }
+
+    private CircuitBreaker circuitBreaker(String backend) {
+        return circuitBreakers.computeIfAbsent(backend, name -> new CircuitBreaker(failureThreshold, openDuration, System::nanoTime));
+    }
+
+    private LatencyWindow latencyWindow(String backend) {
+        return latencies.computeIfAbsent(backend, name -> new LatencyWindow(256));
+    }
+
+    private static void acquirePermit(CircuitBreaker circuitBreaker) {
+        if (!circuitBreaker.tryAcquire()) {
+            long seconds = Math.max(1, circuitBreaker.remainingOpen().toSeconds());
+            throw new CircuitOpenException("AI provider is unavailable, retry in " + seconds + "s");
+        }
+    }
+
+    private ResponseEntity<OpenRouterChatResponse> hedgedPost(String backend, String url, HttpEntity<OpenRouterChatRequest> entity) {
+        var primary = client.postAsync(url, entity);
+        try {
+            return primary.get(hedgeDelayMillis(latencyWindow(backend)), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Primary is slower than usual; race a second request against it
+        } catch (ExecutionException e) {
+            return client.await(primary, url);
+        } catch (InterruptedException e) {
+            primary.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RequestCancelledException("Request to " + url + " was cancelled");
+        }
+
+        var hedge = client.postAsync(url, entity);
+        try {
+            return client.await(firstSuccessful(primary, hedge), url);
+        } finally {
+            primary.cancel(true);
+            hedge.cancel(true);
+        }
+    }
+
+    private long hedgeDelayMillis(LatencyWindow latencies) {
+        long p95 = latencies.count() >= MIN_HEDGE_SAMPLES ? latencies.percentile(95) : -1;
+        return Math.max(hedgeMinDelayMillis, p95);
+    }
+
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        var result = new CompletableFuture<T>();
+        var failures = new AtomicInteger();
+        for (var future : new CompletableFuture[]{first, second}) {
+            @SuppressWarnings("unchecked")
+            var typed = (CompletableFuture<T>) future;
+            typed.whenComplete((value, e) -> {
+                if (e == null) {
+                    result.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static boolean isRetryable(RestClientException e) {
+        if (e instanceof HttpClientErrorException clientError) {
+            return clientError.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                    || clientError.getStatusCode().isSameCodeAs(HttpStatus.REQUEST_TIMEOUT);
+        }
+        return e instanceof HttpServerErrorException || e instanceof ResourceAccessException;
+    }
+
+    // Full jitter; an upstream Retry-After wins when it fits within the backoff cap
+    private long backoffMillis(int attempt, RestClientException e) {
+        long retryAfter = retryAfterMillis(e);
+        if (retryAfter > 0 && retryAfter <= maxBackoffMillis) {
+            return retryAfter;
+        }
+        long cap = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static long retryAfterMillis(RestClientException e) {
+        if (e instanceof RestClientResponseException responseException && responseException.getResponseHeaders() != null) {
+            String value = responseException.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+            if (value != null) {
+                try {
+                    return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+                } catch (NumberFormatException ignored) {
+                    // HTTP-date form; fall back to computed backoff
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestCancelledException("Cancelled while waiting to retry");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package jr.chatbot.service.llm;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jr.chatbot.entity.Character;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Compiled system prompt per character. Custom fields are rendered in key order so the prompt
+ * text is byte-identical across turns, which keeps provider-side prompt caching effective.
+ * Entries are dropped explicitly on update/delete and also rebuilt if the character's
+ * {@code updatedAt} no longer matches the compiled version.
+ */
+@Component
+public class SystemPromptCache {
+
+    private final Cache<UUID, CompiledPrompt> cache;
+
+    public SystemPromptCache(@Value("${openrouter.prompt-cache.max-size:1000}") long maxSize) {
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    public String get(Character character) {
+        if (character == null) {
+            return "";
+        }
+        if (character.getId() == null) {
+            return compile(character);
+        }
+
+        var compiled = cache.getIfPresent(character.getId());
+        if (compiled != null && Objects.equals(compiled.version(), character.getUpdatedAt())) {
+            return compiled.prompt();
+        }
+
+        String prompt = compile(character);
+        cache.put(character.getId(), new CompiledPrompt(character.getUpdatedAt(), prompt));
+        return prompt;
+    }
+
+    public void invalidate(UUID characterId) {
+        if (characterId != null) {
+            cache.invalidate(characterId);
+        }
+    }
+
+    static String compile(Character character) {
+        StringBuilder prompt = new StringBuilder();
+
+        if (character.getSystemPrompt() != null && !character.getSystemPrompt().isBlank()) {
+            prompt.append(character.getSystemPrompt());
+        }
+
+        Map<String, String> customFields = character.getCustomFields();
+        if (customFields != null && !customFields.isEmpty()) {
+            if (!prompt.isEmpty()) {
+                prompt.append("\n\n");
+            }
+            prompt.append("Character Details:\n");
+            new TreeMap<>(customFields).forEach((key, value) -> prompt.append("- ").append(key).append(": ").append(value).append("\n"));
+        }
+
+        return prompt.toString();
+    }
+
+    private record CompiledPrompt(ZonedDateTime version, String prompt) {
+    }
+}
@@ -0,0 +1,64 @@
+package jr.chatbot.service.llm;
+
+import jr.chatbot.dto.openrouter.OpenAIMessage;
+
+import java.util.List;
+
+/**
+ * Fast local token estimate that walks the characters once without allocating.
+ * ASCII averages roughly four characters per token; other scripts are weighted closer to one
+ * token per character. The estimate errs on the high side so budgets stay safe.
+ */
+public final class TokenEstimator {
+
+    public static final int MESSAGE_OVERHEAD_TOKENS = 4;
+    public static final int REPLY_PRIMING_TOKENS = 3;
+
+    private static final int UNITS_PER_TOKEN = 4;
+    private static final int ASCII_UNITS = 1;
+    private static final int NON_ASCII_UNITS = 3;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        long units = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            units += text.charAt(i) < 128 ? ASCII_UNITS : NON_ASCII_UNITS;
+        }
+        return (int) ((units + UNITS_PER_TOKEN - 1) / UNITS_PER_TOKEN);
+    }
+
+    public static int estimate(OpenAIMessage message) {
+        return MESSAGE_OVERHEAD_TOKENS + estimate(message.getContent());
+    }
+
+    public static int estimate(List<OpenAIMessage> messages) {
+        int total = REPLY_PRIMING_TOKENS;
+        for (var message : messages) {
+            total += estimate(message);
+        }
+        return total;
+    }
+
+    /**
+     * Index from which the tail of {@code text} fits in {@code budgetTokens}.
+     */
+    public static int tailStart(CharSequence text, int budgetTokens) {
+        long budgetUnits = (long) budgetTokens * UNITS_PER_TOKEN;
+        long units = 0;
+        int i = text.length();
+        while (i > 0) {
+            int next = text.charAt(i - 1) < 128 ? ASCII_UNITS : NON_ASCII_UNITS;
+            if (units + next > budgetUnits) {
+                break;
+            }
+            units += next;
+            i--;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,141 @@
+package jr.chatbot.service.llm;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user token buckets guarding AI calls. A caller that finds the bucket empty reserves a future token and
+ * waits for it, as long as no more than {@code max-queued} calls are already waiting and the wait fits in
+ * {@code max-wait}; otherwise it is rejected at once with a {@link RateLimitExceededException}.
+ */
+@Component
+public class UserRateLimiter {
+
+    private final boolean enabled;
+    private final double burst;
+    private final double tokensPerNano;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+    private final LongSupplier clock;
+    private final Cache<UUID, Bucket> buckets;
+
+    @Autowired
+    public UserRateLimiter(@Value("${app.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.burst:10}") int burst,
+                           @Value("${app.rate-limit.refill-per-minute:20}") int refillPerMinute,
+                           @Value("${app.rate-limit.max-queued:3}") int maxQueued,
+                           @Value("${app.rate-limit.max-wait:5s}") Duration maxWait) {
+        this(enabled, burst, refillPerMinute, maxQueued, maxWait, System::nanoTime);
+    }
+
+    UserRateLimiter(boolean enabled, int burst, int refillPerMinute, int maxQueued, Duration maxWait, LongSupplier clock) {
+        this.enabled = enabled;
+        this.burst = burst;
+        this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.maxQueued = maxQueued;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.clock = clock;
+        // An idle bucket is full again after burst / rate, so dropping it then loses nothing
+        long refillNanos = (long) Math.ceil(burst / tokensPerNano);
+        this.buckets = Caffeine.newBuilder().expireAfterAccess(Duration.ofNanos(refillNanos)).build();
+    }
+
+    /**
+     * Takes one token for the user, blocking up to {@code max-wait} when the bucket is empty.
+     */
+    public void acquire(UUID userId) {
+        acquire(userId, 1);
+    }
+
+    /**
+     * Takes {@code count} tokens at once, or none: a rejected or interrupted call leaves the bucket as it was.
+     */
+    public void acquire(UUID userId, int count) {
+        long waitNanos = reserve(userId, count);
+        if (waitNanos <= 0) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + waitNanos;
+        long remaining = waitNanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                bucket(userId).release(count);
+                throw new RateLimitExceededException(toRetryAfterSeconds(remaining));
+            }
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Reserves one token and returns how long the caller must wait before using it, in nanoseconds.
+     */
+    long reserve(UUID userId) {
+        return reserve(userId, 1);
+    }
+
+    long reserve(UUID userId, int count) {
+        if (!enabled || userId == null || count <= 0) {
+            return 0;
+        }
+        return bucket(userId).reserve(count);
+    }
+
+    private Bucket bucket(UUID userId) {
+        return buckets.get(userId, id -> new Bucket(burst, clock.getAsLong()));
+    }
+
+    private static long toRetryAfterSeconds(long nanos) {
+        return Math.max(1, (long) Math.ceil(nanos / 1e9));
+    }
+
+    private record State(double tokens, long refilledAt) {
+    }
+
+    private final class Bucket {
+        private final AtomicReference<State> state;
+
+        private Bucket(double tokens, long now) {
+            this.state = new AtomicReference<>(new State(tokens, now));
+        }
+
+        // Tokens may go negative: each unit below zero is one queued caller holding a future token
+        private long reserve(int count) {
+            while (true) {
+                State current = state.get();
+                long now = clock.getAsLong();
+                double tokens = Math.min(burst, current.tokens() + (now - current.refilledAt()) * tokensPerNano);
+
+                long waitNanos = tokens >= count ? 0 : (long) Math.ceil((count - tokens) / tokensPerNano);
+                if (waitNanos > 0 && (tokens <= -maxQueued || waitNanos > maxWaitNanos)) {
+                    throw new RateLimitExceededException(toRetryAfterSeconds(waitNanos));
+                }
+
+                if (state.compareAndSet(current, new State(tokens - count, now))) {
+                    return waitNanos;
+                }
+            }
+        }
+
+        // Hands back tokens reserved by a caller that gave up waiting
+        private void release(int count) {
+            while (true) {
+                State current = state.get();
+                if (state.compareAndSet(current, new State(current.tokens() + count, current.refilledAt()))) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package jr.chatbot.util;
+
+/**
+ * Lets a request cancel work running on another thread once its client has gone away.
+ * Cancelling interrupts the attached worker, which aborts any provider call it is waiting on.
+ */
+public class CancellationHandle {
+
+    private Thread worker;
+    private boolean cancelled;
+
+    /**
+     * Binds the handle to the current thread; a handle cancelled before this interrupts the thread right away.
+     */
+    public synchronized void attach() {
+        worker = Thread.currentThread();
+        if (cancelled) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Unbinds the current thread and clears any interrupt this handle left on it.
+     */
+    public synchronized void detach() {
+        if (worker == Thread.currentThread()) {
+            worker = null;
+            Thread.interrupted();
+        }
+    }
+
+    public synchronized void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
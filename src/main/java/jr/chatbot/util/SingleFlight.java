@@ -0,0 +1,62 @@
+package jr.chatbot.util;
+
+import jr.chatbot.service.llm.RequestCancelledException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls with the same key into one execution.
+ * The first caller runs the work; callers arriving while it is in flight wait on the same future
+ * and receive its result marked as shared. A waiting caller that is interrupted stops waiting with
+ * {@link RequestCancelledException}; the flight itself keeps running.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Result<V> execute(K key, Supplier<V> work) {
+        var flight = new CompletableFuture<V>();
+        var existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return new Result<>(await(existing), true);
+        }
+
+        try {
+            V value = work.get();
+            flight.complete(value);
+            return new Result<>(value, false);
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestCancelledException("Cancelled while waiting for a shared call");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public record Result<V>(V value, boolean shared) {
+    }
+}
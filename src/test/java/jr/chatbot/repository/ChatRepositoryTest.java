@@ -0,0 +1,57 @@
+package jr.chatbot.repository;
+
+import jr.chatbot.entity.Chat;
+import jr.chatbot.entity.Message;
+import jr.chatbot.enums.MessageRoleEnum;
+import jr.chatbot.enums.ResourceStatusEnum;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+class ChatRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Test
+    void testBackfillListColumns_CountsActiveMessagesOnly() {
+        // Arrange
+        Chat legacy = new Chat();
+        legacy.setMessageCount(null);
+        Chat chat = entityManager.persistFlushFind(legacy);
+        ZonedDateTime sentAt = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        persistMessage(chat, sentAt);
+        Message deleted = persistMessage(chat, sentAt.plusMinutes(1));
+        messageRepository.bulkUpdateResourceStatusByIds(List.of(deleted.getId()), ResourceStatusEnum.DELETED, ZonedDateTime.now());
+
+        // Act
+        int updated = chatRepository.backfillListColumns(ResourceStatusEnum.ACTIVE);
+        entityManager.clear();
+
+        // Assert
+        Chat reloaded = entityManager.find(Chat.class, chat.getId());
+        assertEquals(1, updated);
+        assertEquals(1, reloaded.getMessageCount());
+        assertTrue(reloaded.getLastMessageAt().isEqual(sentAt));
+    }
+
+    private Message persistMessage(Chat chat, ZonedDateTime timestamp) {
+        Message message = new Message(MessageRoleEnum.USER, "Hi", timestamp);
+        message.setChat(chat);
+        return entityManager.persistAndFlush(message);
+    }
+}
@@ -0,0 +1,87 @@
+package jr.chatbot.repository;
+
+import jr.chatbot.entity.Chat;
+import jr.chatbot.entity.Message;
+import jr.chatbot.enums.MessageRoleEnum;
+import jr.chatbot.enums.ResourceStatusEnum;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+class ResourceRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Test
+    void testBulkUpdateResourceStatusByIds_SetsUpdatedAt() {
+        // Arrange
+        Chat chat = entityManager.persistFlushFind(new Chat());
+        assertNull(chat.getUpdatedAt());
+        ZonedDateTime now = ZonedDateTime.now();
+
+        // Act
+        int updated = chatRepository.bulkUpdateResourceStatusByIds(List.of(chat.getId()), ResourceStatusEnum.DELETED, now);
+        entityManager.clear();
+
+        // Assert
+        Chat reloaded = entityManager.find(Chat.class, chat.getId());
+        assertEquals(1, updated);
+        assertEquals(ResourceStatusEnum.DELETED, reloaded.getResourceStatus());
+        assertNotNull(reloaded.getUpdatedAt());
+        assertTrue(reloaded.getUpdatedAt().isAfter(now.minusSeconds(1)));
+    }
+
+    @Test
+    void testBulkUpdateResourceStatusByChatId_SetsUpdatedAt() {
+        // Arrange
+        Chat chat = entityManager.persistFlushFind(new Chat());
+        Message message = new Message(MessageRoleEnum.USER, "Hi", ZonedDateTime.now());
+        message.setChat(chat);
+        UUID messageId = entityManager.persistAndFlush(message).getId();
+        ZonedDateTime now = ZonedDateTime.now();
+
+        // Act
+        messageRepository.bulkUpdateResourceStatusByChatId(chat.getId(), ResourceStatusEnum.DELETED, now);
+        entityManager.clear();
+
+        // Assert
+        Message reloaded = entityManager.find(Message.class, messageId);
+        assertEquals(ResourceStatusEnum.DELETED, reloaded.getResourceStatus());
+        assertNotNull(reloaded.getUpdatedAt());
+    }
+
+    @Test
+    void testUpdateContent_SetsUpdatedAt() {
+        // Arrange
+        Chat chat = entityManager.persistFlushFind(new Chat());
+        Message message = new Message(MessageRoleEnum.ASSISTANT, "", ZonedDateTime.now());
+        message.setChat(chat);
+        message.setPartial(true);
+        UUID messageId = entityManager.persistAndFlush(message).getId();
+
+        // Act
+        messageRepository.updateContent(messageId, "Half a reply", ZonedDateTime.now());
+        entityManager.clear();
+
+        // Assert
+        Message reloaded = entityManager.find(Message.class, messageId);
+        assertEquals("Half a reply", reloaded.getContent());
+        assertTrue(reloaded.getPartial());
+        assertNotNull(reloaded.getUpdatedAt());
+    }
+}
@@ -3,6 +3,7 @@ package jr.chatbot.service;
 import jr.chatbot.entity.Character;
 import jr.chatbot.enums.ResourceStatusEnum;
 import jr.chatbot.repository.CharacterRepository;
+import jr.chatbot.service.llm.SystemPromptCache;
 import jr.chatbot.util.SecurityUtil;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +15,7 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -35,6 +37,9 @@ class CharacterServiceTest {
     @Mock
     private MessageService messageService;
 
+    @Mock
+    private SystemPromptCache systemPromptCache;
+
     @InjectMocks
     private CharacterService characterService;
 
@@ -236,6 +241,7 @@ class CharacterServiceTest {
         assertEquals("Updated Character", result.getName());
         verify(characterRepository).findById(testCharacterId);
         verify(characterRepository).save(any(Character.class));
+        verify(systemPromptCache).invalidate(testCharacterId);
     }
 
     @Test
@@ -265,7 +271,6 @@ class CharacterServiceTest {
         securityUtilMock.when(SecurityUtil::getCurrentUserId).thenReturn(testUserId);
         securityUtilMock.when(SecurityUtil::isCurrentUserAdmin).thenReturn(false);
         when(characterRepository.findById(testCharacterId)).thenReturn(Optional.of(testCharacter));
-        when(characterRepository.save(any(Character.class))).thenReturn(testCharacter);
         when(messageService.softDeleteMessagesByCharacterId(testCharacterId)).thenReturn(5);
         when(chatService.softDeleteChatsByCharacterId(testCharacterId)).thenReturn(2);
 
@@ -274,11 +279,12 @@ class CharacterServiceTest {
 
         // Assert
         assertTrue(result);
-        assertEquals(ResourceStatusEnum.DELETED, testCharacter.getResourceStatus());
         verify(characterRepository).findById(testCharacterId);
-        verify(characterRepository).save(testCharacter);
+        verify(characterRepository).bulkUpdateResourceStatusByIds(eq(List.of(testCharacterId)), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class));
+        verify(characterRepository, never()).save(any(Character.class));
         verify(messageService).softDeleteMessagesByCharacterId(testCharacterId);
         verify(chatService).softDeleteChatsByCharacterId(testCharacterId);
+        verify(systemPromptCache).invalidate(testCharacterId);
     }
 
     @Test
@@ -297,7 +303,7 @@ class CharacterServiceTest {
 
         assertTrue(exception.getMessage().contains("Access denied"));
         verify(characterRepository).findById(testCharacterId);
-        verify(characterRepository, never()).save(any(Character.class));
+        verify(characterRepository, never()).bulkUpdateResourceStatusByIds(any(), any(), any());
         verify(messageService, never()).softDeleteMessagesByCharacterId(any());
         verify(chatService, never()).softDeleteChatsByCharacterId(any());
     }
@@ -1,10 +1,12 @@
 package jr.chatbot.service;
 
+import jr.chatbot.dto.MessageResponse;
 import jr.chatbot.entity.Chat;
 import jr.chatbot.entity.Message;
 import jr.chatbot.enums.MessageRoleEnum;
 import jr.chatbot.enums.ResourceStatusEnum;
 import jr.chatbot.repository.ChatRepository;
+import jr.chatbot.repository.MessageRepository;
 import jr.chatbot.util.SecurityUtil;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +16,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.ZonedDateTime;
@@ -21,6 +24,9 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +35,12 @@ class ChatServiceTest {
     @Mock
     private ChatRepository chatRepository;
 
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private MessageService messageService;
+
     @InjectMocks
     private ChatService chatService;
 
@@ -199,20 +211,70 @@ class ChatServiceTest {
     @Test
     void testAddMessageToChat_Success() {
         // Arrange
-        Message newMessage = new Message(MessageRoleEnum.USER, "New message", ZonedDateTime.now());
+        ZonedDateTime timestamp = ZonedDateTime.now();
+        Message newMessage = new Message(MessageRoleEnum.USER, "New message", timestamp);
 
-        when(chatRepository.findById(testChatId)).thenReturn(Optional.of(testChat));
-        when(chatRepository.save(any(Chat.class))).thenReturn(testChat);
+        when(chatRepository.updateListColumns(eq(testChatId), eq(1), any(ZonedDateTime.class), eq("New message"), eq(timestamp))).thenReturn(1);
+        when(chatRepository.getReferenceById(testChatId)).thenReturn(testChat);
+        when(messageRepository.saveAll(List.of(newMessage))).thenReturn(List.of(newMessage));
 
         // Act
-        chatService.addMessageToChat(testChatId, newMessage);
+        Message result = chatService.addMessageToChat(testChatId, newMessage);
 
         // Assert
+        assertSame(newMessage, result);
         assertEquals(testChat, newMessage.getChat());
-        assertEquals(1, testChat.getMessageList().size());
-        assertTrue(testChat.getMessageList().contains(newMessage));
-        verify(chatRepository).findById(testChatId);
-        verify(chatRepository).save(testChat);
+        verify(chatRepository, never()).findById(any());
+        verify(chatRepository, never()).save(any(Chat.class));
+    }
+
+    @Test
+    void testAddMessageToChat_LongContent_StoresTruncatedPreview() {
+        // Arrange
+        Message newMessage = new Message(MessageRoleEnum.USER, "x".repeat(300), ZonedDateTime.now());
+
+        when(chatRepository.updateListColumns(eq(testChatId), eq(1), any(ZonedDateTime.class), anyString(), any(ZonedDateTime.class))).thenReturn(1);
+        when(messageRepository.saveAll(List.of(newMessage))).thenReturn(List.of(newMessage));
+
+        // Act
+        chatService.addMessageToChat(testChatId, newMessage);
+
+        // Assert
+        verify(chatRepository).updateListColumns(eq(testChatId), eq(1), any(ZonedDateTime.class), eq("x".repeat(120) + "…"), eq(newMessage.getTimestamp()));
+    }
+
+    @Test
+    void testAddMessagesToChat_StoresTurnTogether() {
+        // Arrange
+        Message userMessage = new Message(MessageRoleEnum.USER, "Hello", ZonedDateTime.now());
+        Message reply = new Message(MessageRoleEnum.ASSISTANT, "Hi there", ZonedDateTime.now());
+        List<Message> turn = List.of(userMessage, reply);
+
+        when(chatRepository.updateListColumns(eq(testChatId), eq(2), any(ZonedDateTime.class), eq("Hi there"), eq(reply.getTimestamp()))).thenReturn(1);
+        when(chatRepository.getReferenceById(testChatId)).thenReturn(testChat);
+        when(messageRepository.saveAll(turn)).thenReturn(turn);
+
+        // Act
+        List<Message> result = chatService.addMessagesToChat(testChatId, turn);
+
+        // Assert
+        assertEquals(turn, result);
+        assertEquals(testChat, userMessage.getChat());
+        assertEquals(testChat, reply.getChat());
+        verify(messageRepository).saveAll(turn);
+        verify(messageRepository, never()).save(any(Message.class));
+    }
+
+    @Test
+    void testPreviewOf_DoesNotSplitSurrogatePair() {
+        // Arrange
+        String content = "a".repeat(119) + "😀" + "tail";
+
+        // Act
+        String preview = ChatService.previewOf(content);
+
+        // Assert
+        assertEquals("a".repeat(119) + "…", preview);
     }
 
     @Test
@@ -221,27 +283,26 @@ class ChatServiceTest {
         UUID randomChatId = UUID.randomUUID();
         Message newMessage = new Message(MessageRoleEnum.USER, "New message", ZonedDateTime.now());
 
-        when(chatRepository.findById(randomChatId)).thenReturn(Optional.empty());
+        when(chatRepository.updateListColumns(eq(randomChatId), eq(1), any(ZonedDateTime.class), anyString(), any(ZonedDateTime.class))).thenReturn(0);
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> chatService.addMessageToChat(randomChatId, newMessage));
 
-        verify(chatRepository).findById(randomChatId);
-        verify(chatRepository, never()).save(any(Chat.class));
+        verify(messageRepository, never()).saveAll(any());
     }
 
     @Test
     void testSoftDeleteChatsByCharacterId_Success() {
         // Arrange
         int deletedCount = 3;
-        when(chatRepository.bulkUpdateResourceStatusByCharacterId(testCharacterId, ResourceStatusEnum.DELETED)).thenReturn(deletedCount);
+        when(chatRepository.bulkUpdateResourceStatusByCharacterId(eq(testCharacterId), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class))).thenReturn(deletedCount);
 
         // Act
         int result = chatService.softDeleteChatsByCharacterId(testCharacterId);
 
         // Assert
         assertEquals(deletedCount, result);
-        verify(chatRepository).bulkUpdateResourceStatusByCharacterId(testCharacterId, ResourceStatusEnum.DELETED);
+        verify(chatRepository).bulkUpdateResourceStatusByCharacterId(eq(testCharacterId), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class));
     }
 
     @Test
@@ -313,22 +374,82 @@ class ChatServiceTest {
         verify(chatRepository).save(any(Chat.class));
     }
 
+    @Test
+    void testUpdate_KeepsServerMaintainedColumns() {
+        // Arrange
+        ZonedDateTime lastMessageAt = ZonedDateTime.now();
+        testChat.setMessageCount(12);
+        testChat.setLastMessagePreview("See you");
+        testChat.setLastMessageAt(lastMessageAt);
+        testChat.setSummary("They said goodbye.");
+        Chat updatedChat = new Chat();
+        updatedChat.setMessageCount(0);
+        updatedChat.setLastMessagePreview("Forged");
+
+        securityUtilMock.when(SecurityUtil::getCurrentUserId).thenReturn(testUserId);
+        securityUtilMock.when(SecurityUtil::isCurrentUserAdmin).thenReturn(false);
+        when(chatRepository.findById(testChatId)).thenReturn(Optional.of(testChat));
+        when(chatRepository.save(any(Chat.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Chat result = chatService.update(testChatId, updatedChat);
+
+        // Assert
+        assertEquals(12, result.getMessageCount());
+        assertEquals("See you", result.getLastMessagePreview());
+        assertEquals(lastMessageAt, result.getLastMessageAt());
+        assertEquals("They said goodbye.", result.getSummary());
+    }
+
     @Test
     void testSoftDelete_Success() {
         // Arrange
         securityUtilMock.when(SecurityUtil::getCurrentUserId).thenReturn(testUserId);
         securityUtilMock.when(SecurityUtil::isCurrentUserAdmin).thenReturn(false);
         when(chatRepository.findById(testChatId)).thenReturn(Optional.of(testChat));
-        when(chatRepository.save(any(Chat.class))).thenReturn(testChat);
 
         // Act
         boolean result = chatService.softDelete(testChatId);
 
         // Assert
         assertTrue(result);
-        assertEquals(ResourceStatusEnum.DELETED, testChat.getResourceStatus());
         verify(chatRepository).findById(testChatId);
-        verify(chatRepository).save(testChat);
+        verify(chatRepository).bulkUpdateResourceStatusByIds(eq(List.of(testChatId)), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class));
+        verify(chatRepository, never()).save(any(Chat.class));
+        verify(messageService).softDeleteMessagesByChatId(testChatId);
+    }
+
+    @Test
+    void testSoftDeleteMessages_AdjustsCountAndPreview() {
+        // Arrange
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID());
+        ZonedDateTime newestAt = ZonedDateTime.now().minusMinutes(5);
+        MessageResponse newest = new MessageResponse(UUID.randomUUID(), MessageRoleEnum.USER, "Still here", newestAt, null, null);
+
+        when(messageRepository.bulkUpdateResourceStatusByChatIdAndIds(eq(testChatId), eq(ids), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class))).thenReturn(2);
+        when(messageRepository.findNewestPageByChatId(eq(testChatId), eq(ResourceStatusEnum.ACTIVE), any(Limit.class))).thenReturn(List.of(newest));
+
+        // Act
+        int result = chatService.softDeleteMessages(testChatId, ids);
+
+        // Assert
+        assertEquals(2, result);
+        verify(chatRepository).updateListColumns(eq(testChatId), eq(-2), any(ZonedDateTime.class), eq("Still here"), eq(newestAt));
+        verify(messageRepository, never()).save(any(Message.class));
+    }
+
+    @Test
+    void testSoftDeleteMessages_NothingDeleted_LeavesChatUntouched() {
+        // Arrange
+        List<UUID> ids = List.of(UUID.randomUUID());
+        when(messageRepository.bulkUpdateResourceStatusByChatIdAndIds(eq(testChatId), eq(ids), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class))).thenReturn(0);
+
+        // Act
+        int result = chatService.softDeleteMessages(testChatId, ids);
+
+        // Assert
+        assertEquals(0, result);
+        verify(chatRepository, never()).updateListColumns(any(), anyInt(), any(), any(), any());
     }
 
     @Test
@@ -0,0 +1,103 @@
+package jr.chatbot.service;
+
+import jr.chatbot.entity.Chat;
+import jr.chatbot.entity.Message;
+import jr.chatbot.enums.MessageRoleEnum;
+import jr.chatbot.enums.ResourceStatusEnum;
+import jr.chatbot.repository.MessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationSummaryServiceTest {
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private MessageService messageService;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    private ConversationSummaryService summaryService;
+    private UUID testChatId;
+    private Chat testChat;
+
+    @BeforeEach
+    void setUp() {
+        summaryService = new ConversationSummaryService(chatService, messageService, messageRepository, true, 10, 5, 100, 16);
+        testChatId = UUID.randomUUID();
+        testChat = new Chat();
+        testChat.setId(testChatId);
+        testChat.setSummary("Earlier summary");
+        testChat.setSummarizedUpTo(ZonedDateTime.now().minusDays(1));
+        when(chatService.findByIdOrThrow(testChatId)).thenReturn(testChat);
+    }
+
+    @AfterEach
+    void tearDown() {
+        summaryService.shutdown();
+    }
+
+    @Test
+    void testRefresh_BelowTrigger_DoesNothing() {
+        // Arrange
+        when(messageRepository.countTurnsByChatId(testChatId, ResourceStatusEnum.ACTIVE, testChat.getSummarizedUpTo())).thenReturn(15L);
+
+        // Act
+        boolean refreshed = summaryService.refresh(testChatId);
+
+        // Assert
+        assertFalse(refreshed);
+        verifyNoInteractions(messageService);
+    }
+
+    @Test
+    void testRefresh_AboveTrigger_FoldsOldestTurns() {
+        // Arrange
+        ZonedDateTime now = ZonedDateTime.now();
+        Message first = new Message(MessageRoleEnum.USER, "First", now.minusMinutes(2));
+        Message last = new Message(MessageRoleEnum.ASSISTANT, "Second", now.minusMinutes(1));
+        when(messageRepository.countTurnsByChatId(testChatId, ResourceStatusEnum.ACTIVE, testChat.getSummarizedUpTo())).thenReturn(16L);
+        when(messageRepository.findOldestTurnsByChatId(testChatId, ResourceStatusEnum.ACTIVE, testChat.getSummarizedUpTo(), Limit.of(6))).thenReturn(List.of(first, last));
+        when(messageService.summarize("Earlier summary", List.of(first, last))).thenReturn("Updated summary");
+
+        // Act
+        boolean refreshed = summaryService.refresh(testChatId);
+
+        // Assert
+        assertTrue(refreshed);
+        verify(chatService).updateSummary(testChatId, "Updated summary", last.getTimestamp());
+    }
+
+    @Test
+    void testRefresh_SummarizeFails_KeepsPreviousSummary() {
+        // Arrange
+        Message turn = new Message(MessageRoleEnum.USER, "First", ZonedDateTime.now());
+        when(messageRepository.countTurnsByChatId(testChatId, ResourceStatusEnum.ACTIVE, testChat.getSummarizedUpTo())).thenReturn(40L);
+        when(messageRepository.findOldestTurnsByChatId(testChatId, ResourceStatusEnum.ACTIVE, testChat.getSummarizedUpTo(), Limit.of(30))).thenReturn(List.of(turn));
+        when(messageService.summarize(anyString(), any())).thenReturn(null);
+
+        // Act
+        boolean refreshed = summaryService.refresh(testChatId);
+
+        // Assert
+        assertFalse(refreshed);
+        verify(chatService, never()).updateSummary(any(), any(), any());
+    }
+}
@@ -0,0 +1,179 @@
+package jr.chatbot.service;
+
+import jr.chatbot.entity.Character;
+import jr.chatbot.entity.Chat;
+import jr.chatbot.entity.Message;
+import jr.chatbot.enums.MessageRoleEnum;
+import jr.chatbot.util.SingleFlight;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupChatServiceTest {
+
+    @Mock
+    private MessageService messageService;
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private CharacterService characterService;
+
+    @Mock
+    private UsageService usageService;
+
+    private UUID testUserId;
+    private Chat testChat;
+    private Character alice;
+    private Character bob;
+
+    @BeforeEach
+    void setUp() {
+        testUserId = UUID.randomUUID();
+        testChat = new Chat();
+        testChat.setId(UUID.randomUUID());
+        alice = newCharacter("Alice");
+        bob = newCharacter("Bob");
+    }
+
+    @Test
+    void testRespond_CallsCharactersInParallelAndStoresEachReply() {
+        // Arrange
+        var bothStarted = new CountDownLatch(2);
+        when(messageService.getCoalescedAIResponse(eq(testChat), any(), any(), any(), anyString())).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            // Only returns once the other character's call is running too
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            Character character = invocation.getArgument(1);
+            return new SingleFlight.Result<>(reply("Hi from " + character.getName()), false);
+        });
+        var service = new GroupChatService(messageService, chatService, characterService, usageService, 2, Duration.ofSeconds(10));
+        var streamed = new ArrayList<Message>();
+
+        // Act
+        List<Message> replies = service.respond(testUserId, testChat, List.of(alice, bob), null, List.of(), "Hello all", streamed::add);
+
+        // Assert
+        assertEquals(2, replies.size());
+        assertEquals(replies, streamed);
+        assertTrue(replies.stream().allMatch(reply -> testUserId.equals(reply.getOwnerId())));
+        assertEquals("Hi from Alice", replies.stream().filter(reply -> alice.getId().equals(reply.getCharacterId())).findFirst().orElseThrow().getContent());
+        verify(chatService, times(2)).addMessageToChat(eq(testChat.getId()), any(Message.class));
+        verify(usageService, times(2)).record(eq(testChat), any(Message.class));
+    }
+
+    @Test
+    void testRespond_DeadlinePassed_CancelsPendingCharacter() {
+        // Arrange
+        when(messageService.getCoalescedAIResponse(eq(testChat), eq(alice), any(), any(), anyString())).thenReturn(new SingleFlight.Result<>(reply("Quick"), false));
+        when(messageService.getCoalescedAIResponse(eq(testChat), eq(bob), any(), any(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return new SingleFlight.Result<>(reply("Too late"), false);
+        });
+        var service = new GroupChatService(messageService, chatService, characterService, usageService, 2, Duration.ofMillis(200));
+
+        // Act
+        long start = System.nanoTime();
+        List<Message> replies = service.respond(testUserId, testChat, List.of(alice, bob), null, List.of(), "Hello all", reply -> {});
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Assert
+        assertTrue(elapsedMillis < 5_000);
+        assertEquals(2, replies.size());
+        assertEquals("Quick", replies.get(0).getContent());
+        assertEquals(bob.getId(), replies.get(1).getCharacterId());
+        assertTrue(replies.get(1).getContent().contains("Bob did not answer in time"));
+        verify(chatService, times(1)).addMessageToChat(eq(testChat.getId()), any(Message.class));
+    }
+
+    @Test
+    void testRespond_SharedReply_NotStoredAgain() {
+        // Arrange
+        when(messageService.getCoalescedAIResponse(any(), any(), any(), any(), anyString())).thenReturn(new SingleFlight.Result<>(reply("Hi"), true));
+        var service = new GroupChatService(messageService, chatService, characterService, usageService, 1, Duration.ofSeconds(10));
+
+        // Act
+        List<Message> replies = service.respond(testUserId, testChat, List.of(alice), null, List.of(), "Hello", reply -> {});
+
+        // Assert
+        assertEquals(1, replies.size());
+        verify(chatService, never()).addMessageToChat(any(), any());
+        verify(usageService, never()).record(any(), any());
+    }
+
+    @Test
+    void testHistoryFor_OtherCharactersRepliesLabelledAsUserTurns() {
+        // Arrange
+        Message question = new Message(MessageRoleEnum.USER, "Hello all", ZonedDateTime.now());
+        Message fromAlice = reply("Hi, Alice here");
+        fromAlice.setCharacterId(alice.getId());
+        Message fromBob = reply("Bob here");
+        fromBob.setCharacterId(bob.getId());
+
+        // Act
+        List<Message> history = GroupChatService.historyFor(alice, List.of(question, fromAlice, fromBob), Map.of(alice.getId(), "Alice", bob.getId(), "Bob"));
+
+        // Assert
+        assertSame(question, history.get(0));
+        assertSame(fromAlice, history.get(1));
+        assertEquals(MessageRoleEnum.USER, history.get(2).getRole());
+        assertEquals("[Bob]: Bob here", history.get(2).getContent());
+    }
+
+    @Test
+    void testHistoryBefore_GroupChat_DropsSameRoundRepliesAndLabelsOthers() {
+        // Arrange
+        testChat.getParticipantIds().addAll(List.of(alice.getId(), bob.getId()));
+        Message firstQuestion = new Message(MessageRoleEnum.USER, "Hello all", ZonedDateTime.now());
+        Message earlierFromBob = reply("Bob here");
+        earlierFromBob.setCharacterId(bob.getId());
+        Message secondQuestion = new Message(MessageRoleEnum.USER, "How are you?", ZonedDateTime.now());
+        Message sameRoundFromBob = reply("Fine");
+        sameRoundFromBob.setCharacterId(bob.getId());
+        Message target = reply("Great");
+        target.setCharacterId(alice.getId());
+        when(messageService.findHistoryBefore(testChat, target)).thenReturn(List.of(firstQuestion, earlierFromBob, secondQuestion, sameRoundFromBob));
+        when(characterService.findById(alice.getId())).thenReturn(Optional.of(alice));
+        when(characterService.findById(bob.getId())).thenReturn(Optional.of(bob));
+        var service = new GroupChatService(messageService, chatService, characterService, usageService, 1, Duration.ofSeconds(10));
+
+        // Act
+        List<Message> history = service.historyBefore(testChat, alice, target);
+
+        // Assert
+        assertEquals(3, history.size());
+        assertEquals("[Bob]: Bob here", history.get(1).getContent());
+        assertSame(secondQuestion, history.getLast());
+    }
+
+    private Character newCharacter(String name) {
+        Character character = new Character();
+        character.setId(UUID.randomUUID());
+        character.setName(name);
+        return character;
+    }
+
+    private Message reply(String content) {
+        return new Message(MessageRoleEnum.ASSISTANT, content, ZonedDateTime.now());
+    }
+}
@@ -1,24 +1,49 @@
 package jr.chatbot.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jr.chatbot.dto.MessagePageResponse;
+import jr.chatbot.dto.MessageResponse;
 import jr.chatbot.dto.openrouter.OpenAIMessage;
 import jr.chatbot.dto.openrouter.OpenRouterChatResponse;
+import jr.chatbot.dto.openrouter.OpenRouterChatRequest;
 import jr.chatbot.entity.Character;
+import jr.chatbot.entity.Chat;
 import jr.chatbot.entity.Message;
 import jr.chatbot.enums.MessageRoleEnum;
 import jr.chatbot.enums.ResourceStatusEnum;
 import jr.chatbot.repository.MessageRepository;
+import jr.chatbot.service.llm.CompletionCache;
+import jr.chatbot.service.llm.CompletionSizer;
+import jr.chatbot.service.llm.ContextWindowAssembler;
+import jr.chatbot.service.llm.LlmBackend;
+import jr.chatbot.service.llm.LlmHttpClient;
+import jr.chatbot.service.llm.ProviderRouter;
+import jr.chatbot.service.llm.RateLimitPacer;
+import jr.chatbot.service.llm.RequestCancelledException;
+import jr.chatbot.service.llm.ResilientLlmClient;
+import jr.chatbot.service.llm.SystemPromptCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.*;
 
@@ -30,11 +55,13 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class MessageServiceTest {
 
+    private static final String API_URL = "https://api.openrouter.ai/api/v1/chat/completions";
+
     @Mock
     private MessageRepository messageRepository;
 
     @Mock
-    private RestTemplate restTemplate;
+    private LlmHttpClient llmHttpClient;
 
     private MessageService messageService;
 
@@ -64,12 +91,28 @@ class MessageServiceTest {
         testCharacter.setCustomFields(new HashMap<>());
 
         // Create MessageService instance and inject mocks
-        messageService = new MessageService(restTemplate, messageRepository);
+        messageService = newMessageService(new CompletionCache(false, 100, Duration.ofMinutes(1)));
+    }
+
+    private MessageService newMessageService(CompletionCache completionCache) {
+        return newMessageService(completionCache, new LlmBackend("default", API_URL, "test-api-key", "openai/gpt-3.5-turbo", 1, 0));
+    }
+
+    private MessageService newMessageService(CompletionCache completionCache, LlmBackend... backends) {
+        var router = new ProviderRouter(List.of(backends), 0.2, 10, Duration.ofMinutes(1), System::nanoTime);
+        var llmClient = new ResilientLlmClient(llmHttpClient, new RateLimitPacer(false, 0.2, Duration.ZERO), 1, Duration.ZERO, Duration.ZERO, 100, Duration.ofSeconds(30), false, Duration.ZERO);
+        var service = new MessageService(llmClient, router, new CompletionSizer(32768, Map.of(), 4096, 256, 128), messageRepository, new ObjectMapper(), completionCache, new SystemPromptCache(100), new ContextWindowAssembler(16000, Map.of()));
 
         // Set up API configuration via reflection
-        ReflectionTestUtils.setField(messageService, "apiKey", "test-api-key");
-        ReflectionTestUtils.setField(messageService, "openRouterApiUrl", "https://api.openrouter.ai/api/v1/chat/completions");
-        ReflectionTestUtils.setField(messageService, "openRouterModel", "openai/gpt-3.5-turbo");
+        configure(service);
+        return service;
+    }
+
+    private void configure(MessageService service) {
+        ReflectionTestUtils.setField(service, "historyMaxMessages", 50);
+        ReflectionTestUtils.setField(service, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(service, "maxPageSize", 3);
+        ReflectionTestUtils.setField(service, "deleteChunkSize", 1000);
     }
 
     @Test
@@ -100,6 +143,99 @@ class MessageServiceTest {
         verify(messageRepository).findById(randomId);
     }
 
+    @Test
+    void testFindRecentHistory_ReturnsChronologicalOrder() {
+        // Arrange
+        ZonedDateTime now = ZonedDateTime.now();
+        Message newest = new Message(MessageRoleEnum.ASSISTANT, "Second", now);
+        Message oldest = new Message(MessageRoleEnum.USER, "First", now.minusMinutes(1));
+        Chat chat = new Chat();
+        chat.setId(testChatId);
+        chat.setSummarizedUpTo(now.minusHours(1));
+        when(messageRepository.findRecentTurnsByChatId(testChatId, ResourceStatusEnum.ACTIVE, now.minusHours(1), Limit.of(50))).thenReturn(List.of(newest, oldest));
+
+        // Act
+        List<Message> history = messageService.findRecentHistory(chat);
+
+        // Assert
+        assertEquals(List.of(oldest, newest), history);
+    }
+
+    @Test
+    void testFindMessagePage_MoreRows_ReturnsCursorForOlderPage() {
+        // Arrange
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        var newest = pageRow(now);
+        var middle = pageRow(now.minusMinutes(1));
+        var oldest = pageRow(now.minusMinutes(2));
+        when(messageRepository.findNewestPageByChatId(testChatId, ResourceStatusEnum.ACTIVE, Limit.of(3))).thenReturn(List.of(newest, middle, oldest));
+        when(messageRepository.findPageBeforeByChatId(testChatId, ResourceStatusEnum.ACTIVE, middle.getTimestamp(), middle.getId(), Limit.of(3))).thenReturn(List.of(oldest));
+
+        // Act
+        MessagePageResponse first = messageService.findMessagePage(testChatId, null, null);
+        MessagePageResponse second = messageService.findMessagePage(testChatId, first.getNextCursor(), null);
+
+        // Assert
+        assertEquals(List.of(newest, middle), first.getMessages());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(oldest), second.getMessages());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testFindMessagePage_LimitCappedAtMaxPageSize() {
+        // Arrange
+        when(messageRepository.findNewestPageByChatId(testChatId, ResourceStatusEnum.ACTIVE, Limit.of(4))).thenReturn(List.of());
+
+        // Act
+        MessagePageResponse page = messageService.findMessagePage(testChatId, null, 1000);
+
+        // Assert
+        assertTrue(page.getMessages().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testFindMessagePage_InvalidCursor_ThrowsBadRequest() {
+        // Act & Assert
+        var exception = assertThrows(ResponseStatusException.class, () -> messageService.findMessagePage(testChatId, "not-a-cursor", 10));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void testGenerateCandidates_ParallelCalls_DropFailures() {
+        // Arrange
+        when(llmHttpClient.post(anyString(), any()))
+                .thenReturn(new ResponseEntity<>(responseWithContent("One"), HttpStatus.OK))
+                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))
+                .thenReturn(new ResponseEntity<>(responseWithContent("Two"), HttpStatus.OK));
+
+        // Act
+        List<String> candidates = messageService.generateCandidates(testCharacter, null, new ArrayList<>(), "Again", 3);
+
+        // Assert
+        assertEquals(2, candidates.size());
+        assertTrue(candidates.containsAll(List.of("One", "Two")));
+        verify(llmHttpClient, times(3)).post(anyString(), any());
+    }
+
+    @Test
+    void testAppendVersions_KeepsOriginalAsFirstVersion() {
+        // Arrange
+        testMessage.setRole(MessageRoleEnum.ASSISTANT);
+        testMessage.setContent("Original");
+        when(messageRepository.findById(testMessageId)).thenReturn(Optional.of(testMessage));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Message result = messageService.appendVersions(testMessageId, List.of("Alt 1", "Alt 2"));
+
+        // Assert
+        assertEquals(List.of("Original", "Alt 1", "Alt 2"), result.getVersions());
+        assertEquals(1, result.getCurrentVersionIndex());
+        assertEquals("Alt 1", result.getContent());
+    }
+
     @Test
     void testUpdateMessage_Success() {
         // Arrange
@@ -152,7 +288,7 @@ class MessageServiceTest {
 
         ResponseEntity<OpenRouterChatResponse> responseEntity = new ResponseEntity<>(response, HttpStatus.OK);
 
-        when(restTemplate.postForEntity(anyString(), any(), eq(OpenRouterChatResponse.class))).thenReturn(responseEntity);
+        when(llmHttpClient.post(anyString(), any())).thenReturn(responseEntity);
 
         // Act
         Message result = messageService.getAIResponse(testCharacter, history, userMessage);
@@ -161,13 +297,13 @@ class MessageServiceTest {
         assertNotNull(result);
         assertEquals(MessageRoleEnum.ASSISTANT, result.getRole());
         assertEquals("I'm doing well, thank you!", result.getContent());
-        verify(restTemplate).postForEntity(anyString(), any(), eq(OpenRouterChatResponse.class));
+        verify(llmHttpClient).post(anyString(), any());
     }
 
     @Test
     void testGetAIResponse_MissingApiKey_ReturnsError() {
         // Arrange
-        ReflectionTestUtils.setField(messageService, "apiKey", null);
+        messageService = newMessageService(new CompletionCache(false, 100, Duration.ofMinutes(1)), new LlmBackend("default", API_URL, null, "openai/gpt-3.5-turbo", 1, 0));
         List<Message> history = new ArrayList<>();
         String userMessage = "Test";
 
@@ -178,13 +314,13 @@ class MessageServiceTest {
         assertNotNull(result);
         assertTrue(result.getContent().contains("Error"));
         assertTrue(result.getContent().contains("API Key is missing"));
-        verify(restTemplate, never()).postForEntity(anyString(), any(), any());
+        verify(llmHttpClient, never()).post(anyString(), any());
     }
 
     @Test
     void testGetAIResponse_BlankApiKey_ReturnsError() {
         // Arrange
-        ReflectionTestUtils.setField(messageService, "apiKey", "");
+        messageService = newMessageService(new CompletionCache(false, 100, Duration.ofMinutes(1)), new LlmBackend("default", API_URL, "", "openai/gpt-3.5-turbo", 1, 0));
         List<Message> history = new ArrayList<>();
         String userMessage = "Test";
 
@@ -195,7 +331,7 @@ class MessageServiceTest {
         assertNotNull(result);
         assertTrue(result.getContent().contains("Error"));
         assertTrue(result.getContent().contains("API Key is missing"));
-        verify(restTemplate, never()).postForEntity(anyString(), any(), any());
+        verify(llmHttpClient, never()).post(anyString(), any());
     }
 
     @Test
@@ -204,7 +340,7 @@ class MessageServiceTest {
         List<Message> history = new ArrayList<>();
         String userMessage = "Test";
 
-        when(restTemplate.postForEntity(anyString(), any(), eq(OpenRouterChatResponse.class))).thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
+        when(llmHttpClient.post(anyString(), any())).thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
 
         // Act
         Message result = messageService.getAIResponse(testCharacter, history, userMessage);
@@ -221,7 +357,7 @@ class MessageServiceTest {
         List<Message> history = new ArrayList<>();
         String userMessage = "Test";
 
-        when(restTemplate.postForEntity(anyString(), any(), eq(OpenRouterChatResponse.class))).thenThrow(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS));
+        when(llmHttpClient.post(anyString(), any())).thenThrow(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS));
 
         // Act
         Message result = messageService.getAIResponse(testCharacter, history, userMessage);
@@ -232,13 +368,118 @@ class MessageServiceTest {
         assertTrue(result.getContent().contains("Rate limit exceeded"));
     }
 
+    @Test
+    void testGetAIResponse_UnmappedClientError_ReturnsStatusInError() {
+        // Arrange
+        when(llmHttpClient.post(anyString(), any())).thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+
+        // Act
+        Message result = messageService.getAIResponse(testCharacter, new ArrayList<>(), "Test");
+
+        // Assert
+        assertTrue(result.getContent().contains("rejected the request (400)"));
+    }
+
+    @Test
+    void testGetAIResponse_BackendDown_FailsOverToNext() {
+        // Arrange
+        messageService = newMessageService(new CompletionCache(false, 100, Duration.ofMinutes(1)),
+                new LlmBackend("primary", API_URL, "test-api-key", "primary/model", 1, 0),
+                new LlmBackend("fallback", "https://fallback.test/v1/chat/completions", "test-api-key", "fallback/model", 1, 1));
+        when(llmHttpClient.post(eq(API_URL), any())).thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+        when(llmHttpClient.post(eq("https://fallback.test/v1/chat/completions"), any())).thenReturn(new ResponseEntity<>(responseWithContent("From fallback"), HttpStatus.OK));
+
+        // Act
+        Message result = messageService.getAIResponse(testCharacter, new ArrayList<>(), "Hi");
+
+        // Assert
+        assertEquals("From fallback", result.getContent());
+    }
+
+    @Test
+    void testGetAIResponse_Cancelled_PropagatesWithoutFailover() {
+        // Arrange
+        messageService = newMessageService(new CompletionCache(false, 100, Duration.ofMinutes(1)),
+                new LlmBackend("primary", API_URL, "test-api-key", "primary/model", 1, 0),
+                new LlmBackend("fallback", "https://fallback.test/v1/chat/completions", "test-api-key", "fallback/model", 1, 1));
+        when(llmHttpClient.post(eq(API_URL), any())).thenThrow(new RequestCancelledException("Request was cancelled"));
+
+        // Act & Assert
+        assertThrows(RequestCancelledException.class, () -> messageService.getAIResponse(testCharacter, new ArrayList<>(), "Hi"));
+        verify(llmHttpClient, times(1)).post(anyString(), any());
+    }
+
+    @Test
+    void testGetAIResponse_PreferredModel_SentFirst() {
+        // Arrange
+        testCharacter.setPreferredModel("anthropic/claude-3-haiku");
+        when(llmHttpClient.post(anyString(), any())).thenReturn(new ResponseEntity<>(responseWithContent("Hi!"), HttpStatus.OK));
+
+        // Act
+        messageService.getAIResponse(testCharacter, new ArrayList<>(), "Hello");
+
+        // Assert
+        ArgumentCaptor<HttpEntity<OpenRouterChatRequest>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(llmHttpClient).post(eq(API_URL), captor.capture());
+        assertEquals("anthropic/claude-3-haiku", captor.getValue().getBody().getModel());
+    }
+
+    @Test
+    void testGetAIResponse_SetsMaxTokensFromRemainingContext() {
+        // Arrange
+        when(llmHttpClient.post(anyString(), any())).thenReturn(new ResponseEntity<>(responseWithContent("Hi!"), HttpStatus.OK));
+
+        // Act
+        Message result = messageService.getAIResponse(testCharacter, new ArrayList<>(), "Hello");
+
+        // Assert
+        ArgumentCaptor<HttpEntity<OpenRouterChatRequest>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(llmHttpClient).post(anyString(), captor.capture());
+        assertEquals(4096, captor.getValue().getBody().getMaxTokens());
+        assertNotNull(result.getEstimatedPromptTokens());
+    }
+
+    @Test
+    void testGetAIResponse_PromptTooLarge_RejectedLocally() {
+        // Arrange
+        String hugeMessage = "word ".repeat(40_000);
+
+        // Act
+        Message result = messageService.getAIResponse(testCharacter, new ArrayList<>(), hugeMessage);
+
+        // Assert
+        assertTrue(result.getContent().contains("too long for the AI model"));
+        verify(llmHttpClient, never()).post(anyString(), any());
+    }
+
+    @Test
+    void testGetAIResponse_RecordsUsageAndModel() {
+        // Arrange
+        var response = responseWithContent("Hi!");
+        var usage = new OpenRouterChatResponse.Usage();
+        usage.setPromptTokens(42);
+        usage.setCompletionTokens(3);
+        usage.setTotalTokens(45);
+        response.setUsage(usage);
+        when(llmHttpClient.post(anyString(), any())).thenReturn(new ResponseEntity<>(response, HttpStatus.OK));
+
+        // Act
+        Message result = messageService.getAIResponse(testCharacter, new ArrayList<>(), "Hello");
+
+        // Assert
+        assertEquals(42, result.getPromptTokens());
+        assertEquals(3, result.getCompletionTokens());
+        assertEquals("openai/gpt-3.5-turbo", result.getModel());
+        assertNotNull(result.getLatencyMs());
+    }
+
     @Test
     void testGetAIResponse_RestClientException_ReturnsError() {
         // Arrange
         List<Message> history = new ArrayList<>();
         String userMessage = "Test";
 
-        when(restTemplate.postForEntity(anyString(), any(), eq(OpenRouterChatResponse.class))).thenThrow(new RestClientException("Connection failed"));
+        when(llmHttpClient.post(anyString(), any())).thenThrow(new RestClientException("Connection failed"));
 
         // Act
         Message result = messageService.getAIResponse(testCharacter, history, userMessage);
@@ -257,7 +498,7 @@ class MessageServiceTest {
 
         ResponseEntity<OpenRouterChatResponse> responseEntity = new ResponseEntity<>(null, HttpStatus.OK);
 
-        when(restTemplate.postForEntity(anyString(), any(), eq(OpenRouterChatResponse.class))).thenReturn(responseEntity);
+        when(llmHttpClient.post(anyString(), any())).thenReturn(responseEntity);
 
         // Act
         Message result = messageService.getAIResponse(testCharacter, history, userMessage);
@@ -286,7 +527,7 @@ class MessageServiceTest {
 
         ResponseEntity<OpenRouterChatResponse> responseEntity = new ResponseEntity<>(response, HttpStatus.OK);
 
-        when(restTemplate.postForEntity(anyString(), any(), eq(OpenRouterChatResponse.class))).thenReturn(responseEntity);
+        when(llmHttpClient.post(anyString(), any())).thenReturn(responseEntity);
 
         // Act
         Message result = messageService.getAIResponse(testCharacter, history, userMessage);
@@ -296,56 +537,211 @@ class MessageServiceTest {
         assertEquals("Hi!", result.getContent());
     }
 
+    @Test
+    void testGetCoalescedAIResponse_PinsChatSummaryAfterSystemPrompt() {
+        // Arrange
+        Chat chat = new Chat();
+        chat.setId(testChatId);
+        when(llmHttpClient.post(anyString(), any())).thenReturn(new ResponseEntity<>(responseWithContent("On my way."), HttpStatus.OK));
+
+        // Act
+        messageService.getCoalescedAIResponse(chat, testCharacter, "They agreed to meet at the harbour.", new ArrayList<>(), "Ready?");
+
+        // Assert
+        ArgumentCaptor<HttpEntity<OpenRouterChatRequest>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(llmHttpClient).post(anyString(), captor.capture());
+        List<OpenAIMessage> sent = captor.getValue().getBody().getMessages();
+        assertEquals(3, sent.size());
+        assertEquals("system", sent.get(1).getRole());
+        assertTrue(sent.get(1).getContent().endsWith("They agreed to meet at the harbour."));
+        assertEquals("Ready?", sent.get(2).getContent());
+    }
+
+    @Test
+    void testGetCoalescedAIResponse_NoSummary_SendsHistoryAsGiven() {
+        // Arrange
+        Chat chat = new Chat();
+        chat.setId(testChatId);
+        chat.setSummary("They agreed to meet at the harbour.");
+        when(llmHttpClient.post(anyString(), any())).thenReturn(new ResponseEntity<>(responseWithContent("On my way."), HttpStatus.OK));
+
+        // Act
+        messageService.getCoalescedAIResponse(chat, testCharacter, null, new ArrayList<>(), "Ready?");
+
+        // Assert
+        ArgumentCaptor<HttpEntity<OpenRouterChatRequest>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(llmHttpClient).post(anyString(), captor.capture());
+        List<OpenAIMessage> sent = captor.getValue().getBody().getMessages();
+        assertEquals(2, sent.size());
+        assertEquals("Ready?", sent.get(1).getContent());
+    }
+
+    @Test
+    void testGetAIResponse_CacheEnabled_SecondCallServedFromCache() {
+        // Arrange
+        var cache = new CompletionCache(true, 100, Duration.ofMinutes(1));
+        messageService = newMessageService(cache);
+
+        when(llmHttpClient.post(anyString(), any())).thenReturn(new ResponseEntity<>(responseWithContent("Hello there!"), HttpStatus.OK));
+
+        // Act
+        Message first = messageService.getAIResponse(testCharacter, new ArrayList<>(), "Hi");
+        Message second = messageService.getAIResponse(testCharacter, new ArrayList<>(), "  hi ");
+
+        // Assert
+        assertEquals("Hello there!", first.getContent());
+        assertEquals("Hello there!", second.getContent());
+        verify(llmHttpClient, times(1)).post(anyString(), any());
+        assertEquals(1, cache.stats().getHits());
+    }
+
+    @Test
+    void testGetAIResponse_CharacterOptedOut_BypassesCache() {
+        // Arrange
+        messageService = newMessageService(new CompletionCache(true, 100, Duration.ofMinutes(1)));
+        testCharacter.setResponseCacheEnabled(false);
+
+        when(llmHttpClient.post(anyString(), any())).thenReturn(new ResponseEntity<>(responseWithContent("Hello there!"), HttpStatus.OK));
+
+        // Act
+        messageService.getAIResponse(testCharacter, new ArrayList<>(), "Hi");
+        messageService.getAIResponse(testCharacter, new ArrayList<>(), "Hi");
+
+        // Assert
+        verify(llmHttpClient, times(2)).post(anyString(), any());
+    }
+
+    @Test
+    void testStreamAIResponse_Success() {
+        // Arrange
+        String sse = """
+                : OPENROUTER PROCESSING
+
+                data: {"id":"1","choices":[{"delta":{"role":"assistant","content":"Hel"},"index":0}]}
+
+                data: {"id":"1","choices":[{"delta":{"content":"lo!"},"index":0,"finish_reason":"stop"}]}
+
+                data: [DONE]
+                """;
+
+        when(llmHttpClient.stream(anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            LlmHttpClient.StreamReader<?> reader = invocation.getArgument(3);
+            return reader.read(new ByteArrayInputStream(sse.getBytes(StandardCharsets.UTF_8)));
+        });
+
+        List<String> deltas = new ArrayList<>();
+
+        // Act
+        Message result = messageService.streamAIResponse(testCharacter, null, new ArrayList<>(), "Hi", deltas::add);
+
+        // Assert
+        assertEquals(MessageRoleEnum.ASSISTANT, result.getRole());
+        assertEquals("Hello!", result.getContent());
+        assertEquals(List.of("Hel", "lo!"), deltas);
+    }
+
+    @Test
+    void testStreamAIResponse_FailsAfterDeltas_Rethrows() {
+        // Arrange
+        String sse = """
+                data: {"id":"1","choices":[{"delta":{"role":"assistant","content":"Hel"},"index":0}]}
+
+                """;
+
+        when(llmHttpClient.stream(anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            LlmHttpClient.StreamReader<?> reader = invocation.getArgument(3);
+            reader.read(new ByteArrayInputStream(sse.getBytes(StandardCharsets.UTF_8)));
+            throw new ResourceAccessException("Connection reset");
+        });
+
+        List<String> deltas = new ArrayList<>();
+
+        // Act & Assert
+        assertThrows(ResourceAccessException.class, () -> messageService.streamAIResponse(testCharacter, null, new ArrayList<>(), "Hi", deltas::add));
+        assertEquals(List.of("Hel"), deltas);
+    }
+
+    @Test
+    void testStreamAIResponse_UnauthorizedError_ReturnsError() {
+        // Arrange
+        when(llmHttpClient.stream(anyString(), any(), any(), any())).thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
+
+        // Act
+        Message result = messageService.streamAIResponse(testCharacter, null, new ArrayList<>(), "Hi", delta -> fail("No deltas expected"));
+
+        // Assert
+        assertTrue(result.getContent().contains("API Key is invalid"));
+    }
+
     @Test
     void testSoftDeleteMessagesByCharacterId_Success() {
         // Arrange
         int deletedCount = 10;
-        when(messageRepository.bulkUpdateResourceStatusByCharacterId(testCharacterId, ResourceStatusEnum.DELETED)).thenReturn(deletedCount);
+        when(messageRepository.bulkUpdateResourceStatusByCharacterId(eq(testCharacterId), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class))).thenReturn(deletedCount);
 
         // Act
         int result = messageService.softDeleteMessagesByCharacterId(testCharacterId);
 
         // Assert
         assertEquals(deletedCount, result);
-        verify(messageRepository).bulkUpdateResourceStatusByCharacterId(testCharacterId, ResourceStatusEnum.DELETED);
+        verify(messageRepository).bulkUpdateResourceStatusByCharacterId(eq(testCharacterId), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class));
     }
 
     @Test
-    void testSoftDeleteMessagesByChatId_Success() {
+    void testSoftDeleteMessagesByChatId_SmallChat_SingleUpdate() {
         // Arrange
-        Message msg1 = new Message();
-        msg1.setId(UUID.randomUUID());
-        msg1.setResourceStatus(ResourceStatusEnum.ACTIVE);
+        when(messageRepository.findIdsByChatIdAndResourceStatus(eq(testChatId), eq(ResourceStatusEnum.ACTIVE), any(Limit.class)))
+                .thenReturn(List.of(UUID.randomUUID(), UUID.randomUUID()));
 
-        Message msg2 = new Message();
-        msg2.setId(UUID.randomUUID());
-        msg2.setResourceStatus(ResourceStatusEnum.ACTIVE);
+        // Act
+        messageService.softDeleteMessagesByChatId(testChatId);
 
-        List<Message> messages = Arrays.asList(msg1, msg2);
+        // Assert
+        verify(messageRepository).bulkUpdateResourceStatusByChatId(eq(testChatId), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class));
+        verify(messageRepository, never()).save(any(Message.class));
+    }
 
-        when(messageRepository.findByChatId(testChatId)).thenReturn(messages);
-        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    @Test
+    void testSoftDeleteMessagesByChatId_EmptyChat_NoUpdate() {
+        // Arrange
+        when(messageRepository.findIdsByChatIdAndResourceStatus(eq(testChatId), eq(ResourceStatusEnum.ACTIVE), any(Limit.class))).thenReturn(List.of());
 
         // Act
         messageService.softDeleteMessagesByChatId(testChatId);
 
         // Assert
-        assertEquals(ResourceStatusEnum.DELETED, msg1.getResourceStatus());
-        assertEquals(ResourceStatusEnum.DELETED, msg2.getResourceStatus());
-        verify(messageRepository).findByChatId(testChatId);
-        verify(messageRepository, times(2)).save(any(Message.class));
+        verify(messageRepository, never()).bulkUpdateResourceStatusByChatId(any(), any(), any());
+        verify(messageRepository, never()).bulkUpdateResourceStatusByIds(any(), any(), any());
     }
 
     @Test
-    void testSoftDeleteMessagesByChatId_EmptyList() {
+    void testSoftDeleteMessagesByChatId_LargeChat_DeletesInChunksInBackground() {
         // Arrange
-        when(messageRepository.findByChatId(testChatId)).thenReturn(new ArrayList<>());
+        List<UUID> firstChunk = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> lastChunk = List.of(UUID.randomUUID());
+        ReflectionTestUtils.setField(messageService, "deleteChunkSize", 2);
+        when(messageRepository.findIdsByChatIdAndResourceStatus(eq(testChatId), eq(ResourceStatusEnum.ACTIVE), any(Limit.class)))
+                .thenReturn(List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()), firstChunk, lastChunk);
+        when(messageRepository.bulkUpdateResourceStatusByIds(any(), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class))).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
 
         // Act
         messageService.softDeleteMessagesByChatId(testChatId);
 
         // Assert
-        verify(messageRepository).findByChatId(testChatId);
-        verify(messageRepository, never()).save(any(Message.class));
+        verify(messageRepository, timeout(5_000)).bulkUpdateResourceStatusByIds(eq(lastChunk), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class));
+        verify(messageRepository).bulkUpdateResourceStatusByIds(eq(firstChunk), eq(ResourceStatusEnum.DELETED), any(ZonedDateTime.class));
+        verify(messageRepository, never()).bulkUpdateResourceStatusByChatId(any(), any(), any());
+    }
+
+    private MessageResponse pageRow(ZonedDateTime timestamp) {
+        return new MessageResponse(UUID.randomUUID(), MessageRoleEnum.USER, "Hi", timestamp, null, null);
+    }
+
+    private OpenRouterChatResponse responseWithContent(String content) {
+        OpenRouterChatResponse.Choice choice = new OpenRouterChatResponse.Choice();
+        choice.setMessage(new OpenAIMessage("assistant", content));
+        OpenRouterChatResponse response = new OpenRouterChatResponse();
+        response.setChoices(List.of(choice));
+        return response;
     }
 }
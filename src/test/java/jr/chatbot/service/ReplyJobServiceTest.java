@@ -0,0 +1,137 @@
+package jr.chatbot.service;
+
+import jr.chatbot.entity.Character;
+import jr.chatbot.entity.Chat;
+import jr.chatbot.entity.Message;
+import jr.chatbot.enums.MessageRoleEnum;
+import jr.chatbot.enums.ReplyJobStatusEnum;
+import jr.chatbot.util.SingleFlight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplyJobServiceTest {
+
+    @Mock
+    private MessageService messageService;
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private ConversationSummaryService conversationSummaryService;
+
+    @Mock
+    private UsageService usageService;
+
+    private ReplyJobService replyJobService;
+    private UUID testUserId;
+    private Chat testChat;
+    private Character testCharacter;
+
+    @BeforeEach
+    void setUp() {
+        replyJobService = new ReplyJobService(messageService, chatService, conversationSummaryService, usageService, 1, 1, Duration.ofMinutes(1));
+        testUserId = UUID.randomUUID();
+        testChat = new Chat();
+        testChat.setId(UUID.randomUUID());
+        testCharacter = new Character();
+    }
+
+    @AfterEach
+    void tearDown() {
+        replyJobService.shutdown();
+    }
+
+    @Test
+    void testSubmit_CompletesAndStoresReply() throws Exception {
+        // Arrange
+        Message reply = new Message(MessageRoleEnum.ASSISTANT, "Hello!", ZonedDateTime.now());
+        when(messageService.getCoalescedAIResponse(any(), any(), any(), any(), anyString())).thenReturn(new SingleFlight.Result<>(reply, false));
+
+        // Act
+        Message userMessage = userMessage("Hi");
+        var job = replyJobService.submit(testUserId, testChat, testCharacter, null, List.of(), userMessage);
+        Message result = job.getResult().get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertSame(reply, result);
+        assertEquals(testUserId, result.getOwnerId());
+        assertEquals(ReplyJobStatusEnum.COMPLETED, replyJobService.find(job.getId()).orElseThrow().getStatus());
+        verify(chatService).addMessagesToChat(testChat.getId(), List.of(userMessage, reply));
+        verify(usageService).record(testChat, reply);
+        verify(conversationSummaryService).scheduleRefresh(testChat.getId());
+    }
+
+    @Test
+    void testSubmit_QueueFull_Rejects() throws Exception {
+        // Arrange
+        var release = new CountDownLatch(1);
+        when(messageService.getCoalescedAIResponse(any(), any(), any(), any(), anyString())).thenAnswer(invocation -> {
+            release.await();
+            return new SingleFlight.Result<>(new Message(MessageRoleEnum.ASSISTANT, "Late", ZonedDateTime.now()), false);
+        });
+
+        // Act
+        var running = replyJobService.submit(testUserId, testChat, testCharacter, null, List.of(), userMessage("One"));
+        var queued = replyJobService.submit(testUserId, testChat, testCharacter, null, List.of(), userMessage("Two"));
+        var exception = assertThrows(ResponseStatusException.class, () -> replyJobService.submit(testUserId, testChat, testCharacter, null, List.of(), userMessage("Three")));
+        release.countDown();
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertNotNull(running.getResult().get(5, TimeUnit.SECONDS));
+        assertNotNull(queued.getResult().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSubmit_SharedCompletion_StoresNothing() throws Exception {
+        // Arrange
+        Message reply = new Message(MessageRoleEnum.ASSISTANT, "Hello!", ZonedDateTime.now());
+        when(messageService.getCoalescedAIResponse(any(), any(), any(), any(), anyString())).thenReturn(new SingleFlight.Result<>(reply, true));
+
+        // Act
+        var job = replyJobService.submit(testUserId, testChat, testCharacter, null, List.of(), userMessage("Hi"));
+        job.getResult().get(5, TimeUnit.SECONDS);
+
+        // Assert
+        verify(chatService, never()).addMessagesToChat(any(), any());
+        verify(usageService, never()).record(any(), any());
+    }
+
+    @Test
+    void testSubmit_Failure_StoresNothing() {
+        // Arrange
+        when(messageService.getCoalescedAIResponse(any(), any(), any(), any(), anyString())).thenThrow(new IllegalStateException("Upstream down"));
+
+        // Act
+        var job = replyJobService.submit(testUserId, testChat, testCharacter, null, List.of(), userMessage("Hi"));
+
+        // Assert
+        assertThrows(ExecutionException.class, () -> job.getResult().get(5, TimeUnit.SECONDS));
+        verify(chatService, never()).addMessagesToChat(any(), any());
+    }
+
+    private Message userMessage(String content) {
+        return new Message(MessageRoleEnum.USER, content, ZonedDateTime.now());
+    }
+}
@@ -0,0 +1,197 @@
+package jr.chatbot.service;
+
+import jr.chatbot.entity.Message;
+import jr.chatbot.enums.MessageRoleEnum;
+import jr.chatbot.util.CancellationHandle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StreamingReplyServiceTest {
+
+    @Mock
+    private MessageService messageService;
+
+    private StreamingReplyService streamingReplyService;
+    private Message placeholder;
+
+    @BeforeEach
+    void setUp() {
+        streamingReplyService = new StreamingReplyService(messageService, 10, Duration.ofMinutes(1), Duration.ofMillis(50));
+        placeholder = new Message(MessageRoleEnum.ASSISTANT, "", ZonedDateTime.now());
+        placeholder.setId(UUID.randomUUID());
+        placeholder.setPartial(true);
+    }
+
+    @Test
+    void testAppend_CheckpointsOncePerThreshold() {
+        // Arrange
+        var live = streamingReplyService.start(placeholder, new CancellationHandle());
+        live.subscribe(new RecordingSubscriber());
+
+        // Act
+        for (int i = 0; i < 25; i++) {
+            live.append("ab");
+        }
+
+        // Assert
+        verify(messageService, times(5)).checkpoint(eq(placeholder.getId()), anyString());
+        verify(messageService).checkpoint(placeholder.getId(), "ab".repeat(25));
+    }
+
+    @Test
+    void testSubscribe_Reattach_GetsSnapshotThenDeltas() {
+        // Arrange
+        var live = streamingReplyService.start(placeholder, new CancellationHandle());
+        live.append("Hello");
+        var subscriber = new RecordingSubscriber();
+
+        // Act
+        streamingReplyService.find(placeholder.getId()).orElseThrow().subscribe(subscriber);
+        live.append(" world");
+
+        // Assert
+        assertEquals(List.of("snapshot", "delta"), subscriber.events);
+        assertEquals("Hello", ((Map<?, ?>) subscriber.data.get(0)).get("content"));
+        assertEquals(" world", ((Map<?, ?>) subscriber.data.get(1)).get("content"));
+    }
+
+    @Test
+    void testComplete_SendsDoneAndForgetsReply() {
+        // Arrange
+        var live = streamingReplyService.start(placeholder, new CancellationHandle());
+        var subscriber = new RecordingSubscriber();
+        live.subscribe(subscriber);
+        Message reply = new Message(MessageRoleEnum.ASSISTANT, "Done", ZonedDateTime.now());
+        Message saved = new Message(MessageRoleEnum.ASSISTANT, "Done", ZonedDateTime.now());
+        when(messageService.completeStreamedReply(placeholder.getId(), reply)).thenReturn(saved);
+
+        // Act
+        Message result = streamingReplyService.complete(live, reply);
+
+        // Assert
+        assertSame(saved, result);
+        assertEquals("done", subscriber.events.getLast());
+        assertTrue(subscriber.completed);
+        assertTrue(streamingReplyService.find(placeholder.getId()).isEmpty());
+    }
+
+    @Test
+    void testUnsubscribe_LastClientGone_CancelsAfterGrace() throws Exception {
+        // Arrange
+        var cancellation = new CancellationHandle();
+        var live = streamingReplyService.start(placeholder, cancellation);
+        var subscriber = new RecordingSubscriber();
+        live.subscribe(subscriber);
+
+        // Act
+        live.unsubscribe(subscriber);
+        Thread.sleep(500);
+
+        // Assert
+        assertTrue(cancellation.isCancelled());
+    }
+
+    @Test
+    void testUnsubscribe_ClientReattachesWithinGrace_NotCancelled() throws Exception {
+        // Arrange
+        var cancellation = new CancellationHandle();
+        var live = streamingReplyService.start(placeholder, cancellation);
+        var first = new RecordingSubscriber();
+        live.subscribe(first);
+
+        // Act
+        live.unsubscribe(first);
+        live.subscribe(new RecordingSubscriber());
+        Thread.sleep(500);
+
+        // Assert
+        assertFalse(cancellation.isCancelled());
+    }
+
+    @Test
+    void testAbandon_StoresPartialContent() {
+        // Arrange
+        var live = streamingReplyService.start(placeholder, new CancellationHandle());
+        live.append("Half");
+
+        // Act
+        Message result = streamingReplyService.abandon(live);
+
+        // Assert
+        verify(messageService).checkpoint(placeholder.getId(), "Half");
+        assertEquals("Half", result.getContent());
+        assertTrue(result.getPartial());
+        verify(messageService, never()).completeStreamedReply(any(), any());
+    }
+
+    @Test
+    void testAppend_SlowSubscriber_DoesNotBlockNewSubscribers() throws Exception {
+        // Arrange
+        var live = streamingReplyService.start(placeholder, new CancellationHandle());
+        var sending = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        live.subscribe(new RecordingSubscriber() {
+            @Override
+            public boolean send(String event, Object payload) {
+                if (event.equals("delta")) {
+                    sending.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return true;
+            }
+        });
+        var appender = Thread.ofVirtual().start(() -> live.append("Hello"));
+        assertTrue(sending.await(1, TimeUnit.SECONDS));
+        var subscriber = new RecordingSubscriber();
+
+        // Act
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> live.subscribe(subscriber));
+        release.countDown();
+        appender.join();
+
+        // Assert
+        assertEquals(List.of("snapshot"), subscriber.events);
+        assertEquals("Hello", ((Map<?, ?>) subscriber.data.get(0)).get("content"));
+    }
+
+    private static class RecordingSubscriber implements StreamingReplyService.Subscriber {
+        private final List<String> events = new ArrayList<>();
+        private final List<Object> data = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public boolean send(String event, Object payload) {
+            events.add(event);
+            data.add(payload);
+            return true;
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package jr.chatbot.service;
+
+import jr.chatbot.entity.Chat;
+import jr.chatbot.entity.ChatUsage;
+import jr.chatbot.entity.Message;
+import jr.chatbot.entity.UserDailyUsage;
+import jr.chatbot.enums.MessageRoleEnum;
+import jr.chatbot.repository.ChatUsageRepository;
+import jr.chatbot.repository.UserDailyUsageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsageServiceTest {
+
+    @Mock
+    private ChatUsageRepository chatUsageRepository;
+
+    @Mock
+    private UserDailyUsageRepository userDailyUsageRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UsageService usageService;
+    private Chat testChat;
+    private UUID testUserId;
+
+    @BeforeEach
+    void setUp() {
+        usageService = new UsageService(chatUsageRepository, userDailyUsageRepository, transactionManager, Duration.ofHours(1));
+        testUserId = UUID.randomUUID();
+        testChat = new Chat();
+        testChat.setId(UUID.randomUUID());
+        testChat.setOwnerId(testUserId);
+        testChat.setCharacterId(UUID.randomUUID());
+    }
+
+    @AfterEach
+    void tearDown() {
+        usageService.shutdown();
+    }
+
+    @Test
+    void testFlush_CoalescesRepliesIntoOneIncrement() {
+        // Arrange
+        usageService.record(testChat, reply(100, 20, 500L));
+        usageService.record(testChat, reply(150, 30, 700L));
+        when(chatUsageRepository.increment(eq(testChat.getId()), eq(testChat.getCharacterId()), anyLong(), anyLong(), anyLong(), anyLong(), any())).thenReturn(1);
+        when(userDailyUsageRepository.increment(eq(testUserId), any(), anyLong(), anyLong(), anyLong(), anyLong(), any())).thenReturn(1);
+
+        // Act
+        usageService.flush();
+
+        // Assert
+        verify(chatUsageRepository).increment(eq(testChat.getId()), eq(testChat.getCharacterId()), eq(2L), eq(250L), eq(50L), eq(1200L), any());
+        verify(userDailyUsageRepository).increment(eq(testUserId), eq(LocalDate.now(ZoneOffset.UTC)), eq(2L), eq(250L), eq(50L), eq(1200L), any());
+        verify(chatUsageRepository, never()).save(any());
+    }
+
+    @Test
+    void testFlush_FirstReply_InsertsRollups() {
+        // Arrange
+        usageService.record(testChat, reply(100, 20, 500L));
+
+        // Act
+        usageService.flush();
+
+        // Assert
+        ArgumentCaptor<ChatUsage> chatCaptor = ArgumentCaptor.forClass(ChatUsage.class);
+        verify(chatUsageRepository).save(chatCaptor.capture());
+        assertEquals(testChat.getCharacterId(), chatCaptor.getValue().getCharacterId());
+        assertEquals(1, chatCaptor.getValue().getReplies());
+        assertEquals(120, chatCaptor.getValue().getPromptTokens() + chatCaptor.getValue().getCompletionTokens());
+        verify(userDailyUsageRepository).save(any(UserDailyUsage.class));
+    }
+
+    @Test
+    void testFlush_WriteFails_KeepsDeltasForNextFlush() {
+        // Arrange
+        usageService.record(testChat, reply(100, 20, 500L));
+        when(chatUsageRepository.increment(any(), any(), anyLong(), anyLong(), anyLong(), anyLong(), any())).thenThrow(new RuntimeException("db down")).thenReturn(1);
+        when(userDailyUsageRepository.increment(any(), any(), anyLong(), anyLong(), anyLong(), anyLong(), any())).thenReturn(1);
+
+        // Act
+        assertThrows(RuntimeException.class, () -> usageService.flush());
+        usageService.flush();
+
+        // Assert
+        verify(chatUsageRepository, times(2)).increment(eq(testChat.getId()), eq(testChat.getCharacterId()), eq(1L), eq(100L), eq(20L), eq(500L), any());
+    }
+
+    @Test
+    void testFlush_GroupReplies_ChargedToEachCharacter() {
+        // Arrange
+        UUID otherCharacterId = UUID.randomUUID();
+        Message otherReply = reply(300, 40, 900L);
+        otherReply.setCharacterId(otherCharacterId);
+        usageService.record(testChat, reply(100, 20, 500L));
+        usageService.record(testChat, otherReply);
+        when(chatUsageRepository.increment(any(), any(), anyLong(), anyLong(), anyLong(), anyLong(), any())).thenReturn(1);
+        when(userDailyUsageRepository.increment(any(), any(), anyLong(), anyLong(), anyLong(), anyLong(), any())).thenReturn(1);
+
+        // Act
+        usageService.flush();
+
+        // Assert
+        verify(chatUsageRepository).increment(eq(testChat.getId()), eq(testChat.getCharacterId()), eq(1L), eq(100L), eq(20L), eq(500L), any());
+        verify(chatUsageRepository).increment(eq(testChat.getId()), eq(otherCharacterId), eq(1L), eq(300L), eq(40L), eq(900L), any());
+    }
+
+    @Test
+    void testFindChatUsage_SeveralCharacters_SumsRows() {
+        // Arrange
+        ChatUsage first = usageRow(2, 100, 20);
+        ChatUsage second = usageRow(1, 300, 40);
+        second.setCharacterId(UUID.randomUUID());
+        when(chatUsageRepository.findByChatId(testChat.getId())).thenReturn(List.of(first, second));
+
+        // Act
+        ChatUsage total = usageService.findChatUsage(testChat.getId()).orElseThrow();
+
+        // Assert
+        assertNull(total.getCharacterId());
+        assertEquals(3, total.getReplies());
+        assertEquals(400, total.getPromptTokens());
+        assertEquals(60, total.getCompletionTokens());
+    }
+
+    @Test
+    void testRecord_ReplyWithoutUsage_Ignored() {
+        // Act
+        usageService.record(testChat, new Message(MessageRoleEnum.ASSISTANT, "[Error: boom]", ZonedDateTime.now()));
+        usageService.flush();
+
+        // Assert
+        verifyNoInteractions(chatUsageRepository, userDailyUsageRepository);
+    }
+
+    private ChatUsage usageRow(long replies, long promptTokens, long completionTokens) {
+        ChatUsage usage = new ChatUsage();
+        usage.setChatId(testChat.getId());
+        usage.setCharacterId(testChat.getCharacterId());
+        usage.setReplies(replies);
+        usage.setPromptTokens(promptTokens);
+        usage.setCompletionTokens(completionTokens);
+        return usage;
+    }
+
+    private Message reply(int promptTokens, int completionTokens, long latencyMs) {
+        Message reply = new Message(MessageRoleEnum.ASSISTANT, "Hi", ZonedDateTime.now(ZoneOffset.UTC));
+        reply.setOwnerId(testUserId);
+        reply.setPromptTokens(promptTokens);
+        reply.setCompletionTokens(completionTokens);
+        reply.setLatencyMs(latencyMs);
+        return reply;
+    }
+}
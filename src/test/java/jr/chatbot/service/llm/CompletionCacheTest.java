@@ -0,0 +1,28 @@
+package jr.chatbot.service.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletionCacheTest {
+
+    private final CompletionCache cache = new CompletionCache(true, 2, Duration.ofMinutes(1));
+
+    @Test
+    void testGet_RecordsHitsAndMisses() {
+        // Arrange
+        cache.put("k1", "reply");
+
+        // Act
+        var hit = cache.get("k1");
+        var miss = cache.get("k2");
+
+        // Assert
+        assertTrue(hit.isPresent());
+        assertTrue(miss.isEmpty());
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+}
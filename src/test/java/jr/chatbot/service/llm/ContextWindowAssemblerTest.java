@@ -0,0 +1,78 @@
+package jr.chatbot.service.llm;
+
+import jr.chatbot.dto.openrouter.OpenAIMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContextWindowAssemblerTest {
+
+    private final OpenAIMessage system = new OpenAIMessage("system", "You are helpful");
+    private final OpenAIMessage userTurn = new OpenAIMessage("user", "What did I say first?");
+
+    @Test
+    void testAssemble_EverythingFits_KeepsAllTurnsInOrder() {
+        // Arrange
+        var assembler = new ContextWindowAssembler(1000, Map.of());
+        var history = List.of(new OpenAIMessage("user", "one"), new OpenAIMessage("assistant", "two"));
+
+        // Act
+        var context = assembler.assemble("model", system, history, userTurn);
+
+        // Assert
+        assertEquals(List.of(system, history.get(0), history.get(1), userTurn), context.messages());
+        assertEquals(0, context.droppedTurns());
+        assertEquals(TokenEstimator.estimate(context.messages()), context.estimatedTokens());
+    }
+
+    @Test
+    void testAssemble_OverBudget_DropsOldestTurnsAndKeepsNewest() {
+        // Arrange
+        var assembler = new ContextWindowAssembler(200, Map.of());
+        var history = new ArrayList<OpenAIMessage>();
+        for (int i = 0; i < 50; i++) {
+            history.add(new OpenAIMessage(i % 2 == 0 ? "user" : "assistant", "turn " + i + " " + "x".repeat(40)));
+        }
+
+        // Act
+        var context = assembler.assemble("model", system, history, userTurn);
+
+        // Assert
+        assertTrue(context.estimatedTokens() <= 200);
+        assertTrue(context.droppedTurns() > 0);
+        assertSame(system, context.messages().getFirst());
+        assertSame(userTurn, context.messages().getLast());
+        assertSame(history.getLast(), context.messages().get(context.messages().size() - 2));
+    }
+
+    @Test
+    void testAssemble_PartiallyFittingTurn_IsTrimmedFromTheFront() {
+        // Arrange
+        var assembler = new ContextWindowAssembler(120, Map.of());
+        var longTurn = new OpenAIMessage("assistant", "start " + "y".repeat(800) + " end");
+
+        // Act
+        var context = assembler.assemble("model", system, List.of(longTurn), userTurn);
+
+        // Assert
+        var trimmed = context.messages().get(1);
+        assertTrue(trimmed.getContent().startsWith("..."));
+        assertTrue(trimmed.getContent().endsWith(" end"));
+        assertEquals(0, context.droppedTurns());
+        assertTrue(context.estimatedTokens() <= 120);
+    }
+
+    @Test
+    void testBudgetFor_UsesModelOverride() {
+        // Arrange
+        var assembler = new ContextWindowAssembler(1000, Map.of("big/model", 100000));
+
+        // Act & Assert
+        assertEquals(100000, assembler.budgetFor("big/model"));
+        assertEquals(1000, assembler.budgetFor("other/model"));
+    }
+}
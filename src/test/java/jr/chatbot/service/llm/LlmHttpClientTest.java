@@ -0,0 +1,165 @@
+package jr.chatbot.service.llm;
+
+import com.sun.net.httpserver.HttpServer;
+import jr.chatbot.dto.openrouter.OpenAIMessage;
+import jr.chatbot.dto.openrouter.OpenRouterChatRequest;
+import jr.chatbot.dto.openrouter.OpenRouterChatResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmHttpClientTest {
+
+    private HttpServer server;
+    private LlmHttpClient client;
+    private String url;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1/chat/completions";
+        client = new LlmHttpClient(Jackson2ObjectMapperBuilder.json().build(), Duration.ofSeconds(2), Duration.ofMillis(500), Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testPost_Success() {
+        // Arrange
+        respond(200, "{\"id\":\"gen-1\",\"provider\":\"x\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"Hi!\"},\"finish_reason\":\"stop\"}],\"usage\":{\"prompt_tokens\":5,\"completion_tokens\":2,\"total_tokens\":7}}");
+
+        // Act
+        ResponseEntity<OpenRouterChatResponse> response = client.post(url, request());
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Hi!", response.getBody().getChoices().getFirst().getMessage().getContent());
+        assertEquals(7, response.getBody().getUsage().getTotalTokens());
+    }
+
+    @Test
+    void testPost_TooManyRequests_ThrowsClientError() {
+        // Arrange
+        respond(429, "{\"error\":\"slow down\"}");
+
+        // Act & Assert
+        var e = assertThrows(HttpClientErrorException.class, () -> client.post(url, request()));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+        assertTrue(e.getResponseBodyAsString().contains("slow down"));
+    }
+
+    @Test
+    void testPost_ServiceUnavailable_ThrowsServerError() {
+        // Arrange
+        respond(503, "");
+
+        // Act & Assert
+        var e = assertThrows(HttpServerErrorException.class, () -> client.post(url, request()));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+    }
+
+    @Test
+    void testPost_SlowServer_ThrowsResourceAccessException() {
+        // Arrange
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(1500);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+
+        // Act & Assert
+        assertThrows(ResourceAccessException.class, () -> client.post(url, request()));
+    }
+
+    @Test
+    void testStream_ReadsBodyIncrementally() {
+        // Arrange
+        respond(200, "data: one\n\ndata: two\n\n");
+
+        // Act
+        String body = client.stream(url, request(), in -> new String(in.readAllBytes(), StandardCharsets.UTF_8));
+
+        // Assert
+        assertEquals("data: one\n\ndata: two\n\n", body);
+    }
+
+    @Test
+    void testStream_InterruptedWhileWaiting_ThrowsRequestCancelled() {
+        // Arrange
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write("data: one\n\n".getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseBody().flush();
+            try {
+                Thread.sleep(1500);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+
+        // Act
+        long start = System.nanoTime();
+        assertThrows(RequestCancelledException.class, () -> client.stream(url, request(), in -> {
+            in.read(new byte[64]);
+            Thread.currentThread().interrupt();
+            return in.read();
+        }));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Assert
+        assertTrue(Thread.interrupted());
+        assertTrue(elapsedMillis < 1000);
+    }
+
+    private void respond(int status, String body) {
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                exchange.getResponseBody().write(bytes);
+            }
+            exchange.close();
+        });
+    }
+
+    private HttpEntity<OpenRouterChatRequest> request() {
+        var payload = new OpenRouterChatRequest();
+        payload.setModel("test/model");
+        payload.setMessages(List.of(new OpenAIMessage("user", "Hello")));
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth("test-api-key");
+        return new HttpEntity<>(payload, headers);
+    }
+}
@@ -0,0 +1,103 @@
+package jr.chatbot.service.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jr.chatbot.config.MockOpenRouterProperties;
+import jr.chatbot.dto.openrouter.OpenAIMessage;
+import jr.chatbot.dto.openrouter.OpenRouterChatChunk;
+import jr.chatbot.dto.openrouter.OpenRouterChatRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MockOpenRouterServerTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private MockOpenRouterServer server;
+    private LlmHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        var properties = new MockOpenRouterProperties();
+        properties.setPort(0);
+        properties.setLatencyDistribution(MockOpenRouterProperties.LatencyDistribution.FIXED);
+        properties.setLatencyMedian(Duration.ZERO);
+        properties.setTokensPerSecond(10_000);
+        server = new MockOpenRouterServer(properties, objectMapper);
+        server.start();
+        client = new LlmHttpClient(objectMapper, Duration.ofSeconds(2), Duration.ofSeconds(2), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    void testPost_EchoesLastUserMessage() {
+        var response = client.post(server.getCompletionsUrl(), request("Hello mock", false));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Echo: Hello mock", response.getBody().getChoices().getFirst().getMessage().getContent());
+        assertEquals(3, response.getBody().getUsage().getCompletionTokens());
+    }
+
+    @Test
+    void testStream_SendsDeltasThenDone() {
+        String content = client.stream(server.getCompletionsUrl(), request("Hello mock", true), body -> {
+            var reply = new StringBuilder();
+            var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null && !line.equals("data: [DONE]")) {
+                if (line.startsWith("data:")) {
+                    var delta = objectMapper.readValue(line.substring(5), OpenRouterChatChunk.class).getChoices().getFirst().getDelta();
+                    if (delta.getContent() != null) {
+                        reply.append(delta.getContent());
+                    }
+                }
+            }
+            return reply.toString();
+        });
+
+        assertEquals("Echo: Hello mock", content);
+    }
+
+    @Test
+    void testPost_ForcedStatuses_MatchOpenRouterErrors() {
+        var rateLimited = assertThrows(HttpClientErrorException.class, () -> client.post(server.getCompletionsUrl(), request("hi [mock:429]", false)));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rateLimited.getStatusCode());
+        assertEquals("1", rateLimited.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        var dataPolicy = assertThrows(HttpClientErrorException.class, () -> client.post(server.getCompletionsUrl(), request("hi [mock:404]", false)));
+        assertTrue(dataPolicy.getResponseBodyAsString().contains("data policy"));
+
+        assertThrows(HttpServerErrorException.class, () -> client.post(server.getCompletionsUrl(), request("hi [mock:502]", false)));
+    }
+
+    private HttpEntity<OpenRouterChatRequest> request(String prompt, boolean stream) {
+        var payload = new OpenRouterChatRequest();
+        payload.setModel("mock/echo");
+        payload.setMessages(List.of(new OpenAIMessage("system", "Be brief."), new OpenAIMessage("user", prompt)));
+        if (stream) {
+            payload.setStream(true);
+        }
+        var headers = new HttpHeaders();
+        headers.setBearerAuth("mock-key");
+        return new HttpEntity<>(payload, headers);
+    }
+}
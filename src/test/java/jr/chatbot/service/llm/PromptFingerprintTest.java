@@ -0,0 +1,39 @@
+package jr.chatbot.service.llm;
+
+import jr.chatbot.dto.openrouter.OpenAIMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptFingerprintTest {
+
+    @Test
+    void testOf_NormalizesFinalUserTurn() {
+        // Arrange
+        var system = new OpenAIMessage("system", "You are helpful");
+
+        // Act
+        String first = PromptFingerprint.of("model-a", List.of(system, new OpenAIMessage("user", "Hello")));
+        String second = PromptFingerprint.of("model-a", List.of(system, new OpenAIMessage("user", "  hello\n")));
+
+        // Assert
+        assertEquals(first, second);
+    }
+
+    @Test
+    void testOf_DiffersByModelAndSystemPrompt() {
+        // Arrange
+        var user = new OpenAIMessage("user", "Hello");
+
+        // Act
+        String base = PromptFingerprint.of("model-a", List.of(new OpenAIMessage("system", "A"), user));
+        String otherModel = PromptFingerprint.of("model-b", List.of(new OpenAIMessage("system", "A"), user));
+        String otherPrompt = PromptFingerprint.of("model-a", List.of(new OpenAIMessage("system", "B"), user));
+
+        // Assert
+        assertNotEquals(base, otherModel);
+        assertNotEquals(base, otherPrompt);
+    }
+}
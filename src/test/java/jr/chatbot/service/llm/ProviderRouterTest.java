@@ -0,0 +1,85 @@
+package jr.chatbot.service.llm;
+
+import jr.chatbot.config.LlmProviderProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderRouterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final LlmBackend fast = new LlmBackend("fast", "http://a", "key", "model/fast", 1, 0);
+    private final LlmBackend slow = new LlmBackend("slow", "http://a", "key", "model/slow", 1, 0);
+    private final LlmBackend backup = new LlmBackend("backup", "http://b", "key", "model/backup", 1, 1);
+
+    private ProviderRouter newRouter(LlmBackend... backends) {
+        return new ProviderRouter(List.of(backends), 0.5, 10, Duration.ofMinutes(1), now::get);
+    }
+
+    @Test
+    void testRoute_OrdersByPriorityThenLatency() {
+        var router = newRouter(backup, slow, fast);
+        router.recordSuccess(slow, 3000);
+        router.recordSuccess(fast, 300);
+
+        assertEquals(List.of(fast, slow, backup), router.route(null));
+    }
+
+    @Test
+    void testRoute_FailuresDemoteBackend_AndDecayOverTime() {
+        var router = newRouter(fast, slow);
+        router.recordSuccess(fast, 300);
+        router.recordSuccess(slow, 1000);
+        router.recordFailure(fast);
+        router.recordFailure(fast);
+
+        assertEquals(List.of(slow, fast), router.route(null));
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        assertEquals(List.of(fast, slow), router.route(null));
+    }
+
+    @Test
+    void testRoute_PreferredModel_PinnedFirst() {
+        var router = newRouter(fast, slow);
+        router.recordSuccess(fast, 100);
+        router.recordSuccess(slow, 5000);
+
+        assertEquals(List.of(slow, fast), router.route("model/slow"));
+    }
+
+    @Test
+    void testRoute_UnknownPreferredModel_UsesBestEndpoint() {
+        var router = newRouter(fast, backup);
+
+        var route = router.route("vendor/other");
+
+        assertEquals(3, route.size());
+        assertEquals("vendor/other", route.getFirst().model());
+        assertEquals(fast.url(), route.getFirst().url());
+    }
+
+    @Test
+    void testRoute_SkipsBackendsWithoutApiKey() {
+        var keyless = new LlmBackend("keyless", "http://c", "", "model/keyless", 1, 0);
+
+        assertEquals(List.of(fast), newRouter(keyless, fast).route(null));
+        assertTrue(newRouter(keyless).route("model/keyless").isEmpty());
+    }
+
+    @Test
+    void testConstructor_NoProviders_FallsBackToSingleBackend() {
+        var router = new ProviderRouter(new LlmProviderProperties(), "key", "http://default", "model/default", 0.2, 10, Duration.ofMinutes(1));
+
+        var backends = router.backends();
+
+        assertEquals(1, backends.size());
+        assertEquals("http://default", backends.getFirst().url());
+        assertEquals("model/default", backends.getFirst().model());
+    }
+}
@@ -0,0 +1,86 @@
+package jr.chatbot.service.llm;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitPacerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicLong wallMillis = new AtomicLong(1_700_000_000_000L);
+
+    private RateLimitPacer newPacer() {
+        return new RateLimitPacer(true, 0.2, Duration.ofSeconds(30), now::get, wallMillis::get);
+    }
+
+    @Test
+    void testReserve_NoHeadersSeen_DoesNotWait() {
+        var pacer = newPacer();
+
+        assertEquals(0, pacer.reserve("primary"));
+        assertEquals(0, pacer.reserve("primary"));
+    }
+
+    @Test
+    void testReserve_PlentyRemaining_DoesNotWait() {
+        var pacer = newPacer();
+        pacer.update("primary", headers("x-ratelimit-limit-requests", "100", "x-ratelimit-remaining-requests", "50", "x-ratelimit-reset-requests", "10s"));
+
+        assertEquals(0, pacer.reserve("primary"));
+    }
+
+    @Test
+    void testReserve_LowRemaining_SpreadsCallsUntilReset() {
+        var pacer = newPacer();
+        pacer.update("primary", headers("x-ratelimit-limit-requests", "100", "x-ratelimit-remaining-requests", "4", "x-ratelimit-reset-requests", "1m0s"));
+
+        assertEquals(0, pacer.reserve("primary"));
+        assertEquals(TimeUnit.SECONDS.toNanos(15), pacer.reserve("primary"));
+        assertEquals(0, pacer.reserve("secondary"));
+    }
+
+    @Test
+    void testReserve_Exhausted_WaitsForEpochReset() {
+        var pacer = newPacer();
+        long resetAt = wallMillis.get() + 8_000;
+        pacer.update("primary", headers("X-RateLimit-Limit", "20", "X-RateLimit-Remaining", "0", "X-RateLimit-Reset", Long.toString(resetAt)));
+
+        assertEquals(TimeUnit.SECONDS.toNanos(8), pacer.reserve("primary"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(8));
+        assertEquals(0, pacer.reserve("primary"));
+    }
+
+    @Test
+    void testReserve_Exhausted_StaggersQueuedCallsAfterReset() {
+        var pacer = newPacer();
+        pacer.update("primary", headers("x-ratelimit-limit-requests", "10", "x-ratelimit-remaining-requests", "0", "x-ratelimit-reset-requests", "5s"));
+
+        assertEquals(TimeUnit.SECONDS.toNanos(5), pacer.reserve("primary"));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5_500), pacer.reserve("primary"));
+        assertEquals(TimeUnit.SECONDS.toNanos(6), pacer.reserve("primary"));
+    }
+
+    @Test
+    void testReserve_RetryAfter_HoldsCallsCappedAtMaxDelay() {
+        var pacer = newPacer();
+        pacer.update("primary", headers(HttpHeaders.RETRY_AFTER, "5"));
+        assertEquals(TimeUnit.SECONDS.toNanos(5), pacer.reserve("primary"));
+
+        pacer.update("primary", headers(HttpHeaders.RETRY_AFTER, "120"));
+        assertEquals(TimeUnit.SECONDS.toNanos(30), pacer.reserve("primary"));
+    }
+
+    private static HttpHeaders headers(String... namesAndValues) {
+        var headers = new HttpHeaders();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            headers.add(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return headers;
+    }
+}
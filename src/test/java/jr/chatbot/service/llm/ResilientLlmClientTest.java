@@ -0,0 +1,104 @@
+package jr.chatbot.service.llm;
+
+import jr.chatbot.dto.openrouter.OpenRouterChatRequest;
+import jr.chatbot.dto.openrouter.OpenRouterChatResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResilientLlmClientTest {
+
+    private static final String URL = "http://llm.test/v1/chat/completions";
+
+    @Mock
+    private LlmHttpClient llmHttpClient;
+
+    private final HttpEntity<OpenRouterChatRequest> entity = new HttpEntity<>(new OpenRouterChatRequest());
+    private final ResponseEntity<OpenRouterChatResponse> ok = ResponseEntity.ok(new OpenRouterChatResponse());
+
+    private ResilientLlmClient newClient(int maxAttempts, int failureThreshold, boolean hedging, Duration hedgeDelay) {
+        return new ResilientLlmClient(llmHttpClient, new RateLimitPacer(true, 0.2, Duration.ofMillis(5)), maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5), failureThreshold, Duration.ofMinutes(1), hedging, hedgeDelay);
+    }
+
+    @Test
+    void testPost_ServerErrorThenSuccess_Retries() {
+        when(llmHttpClient.post(URL, entity))
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                .thenThrow(new ResourceAccessException("Connection refused"))
+                .thenReturn(ok);
+
+        assertSame(ok, newClient(3, 10, false, Duration.ZERO).post("primary", URL, entity));
+        verify(llmHttpClient, times(3)).post(URL, entity);
+    }
+
+    @Test
+    void testPost_ClientError_NotRetried() {
+        when(llmHttpClient.post(URL, entity)).thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
+
+        assertThrows(HttpClientErrorException.class, () -> newClient(3, 10, false, Duration.ZERO).post("primary", URL, entity));
+        verify(llmHttpClient, times(1)).post(URL, entity);
+    }
+
+    @Test
+    void testPost_ConsecutiveFailures_OpenCircuitAndFailFast() {
+        var client = newClient(1, 2, false, Duration.ZERO);
+        when(llmHttpClient.post(URL, entity)).thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        assertThrows(HttpServerErrorException.class, () -> client.post("primary", URL, entity));
+        assertThrows(HttpServerErrorException.class, () -> client.post("primary", URL, entity));
+        assertEquals(CircuitBreaker.State.OPEN, client.circuitState("primary"));
+
+        assertThrows(CircuitOpenException.class, () -> client.post("primary", URL, entity));
+        verify(llmHttpClient, times(2)).post(URL, entity);
+    }
+
+    @Test
+    void testPost_OpenCircuit_OnlyAffectsThatBackend() {
+        var client = newClient(1, 1, false, Duration.ZERO);
+        when(llmHttpClient.post(URL, entity)).thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY)).thenReturn(ok);
+
+        assertThrows(HttpServerErrorException.class, () -> client.post("primary", URL, entity));
+
+        assertSame(ok, client.post("secondary", URL, entity));
+        assertEquals(CircuitBreaker.State.OPEN, client.circuitState("primary"));
+        assertEquals(CircuitBreaker.State.CLOSED, client.circuitState("secondary"));
+    }
+
+    @Test
+    void testPost_SlowPrimary_HedgeWins() {
+        var slow = new CompletableFuture<ResponseEntity<OpenRouterChatResponse>>();
+        var hedged = ResponseEntity.ok(new OpenRouterChatResponse());
+        when(llmHttpClient.postAsync(URL, entity)).thenReturn(slow, CompletableFuture.completedFuture(hedged));
+        when(llmHttpClient.await(any(), anyString())).thenAnswer(invocation -> ((CompletableFuture<?>) invocation.getArgument(0)).join());
+
+        var response = newClient(1, 10, true, Duration.ofMillis(20)).post("primary", URL, entity);
+
+        assertSame(hedged, response);
+        assertTrue(slow.isCancelled());
+        verify(llmHttpClient, times(2)).postAsync(URL, entity);
+    }
+
+    @Test
+    void testPost_FastPrimary_NoHedge() {
+        when(llmHttpClient.postAsync(URL, entity)).thenReturn(CompletableFuture.completedFuture(ok));
+
+        assertSame(ok, newClient(1, 10, true, Duration.ofSeconds(5)).post("primary", URL, entity));
+        verify(llmHttpClient, times(1)).postAsync(URL, entity);
+    }
+}
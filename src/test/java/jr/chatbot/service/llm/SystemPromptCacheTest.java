@@ -0,0 +1,69 @@
+package jr.chatbot.service.llm;
+
+import jr.chatbot.entity.Character;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SystemPromptCacheTest {
+
+    private SystemPromptCache systemPromptCache;
+    private Character character;
+
+    @BeforeEach
+    void setUp() {
+        systemPromptCache = new SystemPromptCache(10);
+
+        character = new Character();
+        character.setId(UUID.randomUUID());
+        character.setSystemPrompt("You are a pirate");
+        var customFields = new LinkedHashMap<String, String>();
+        customFields.put("mood", "grumpy");
+        customFields.put("age", "40");
+        character.setCustomFields(customFields);
+    }
+
+    @Test
+    void testGet_RendersCustomFieldsInKeyOrder() {
+        // Act
+        String prompt = systemPromptCache.get(character);
+
+        // Assert
+        assertEquals("You are a pirate\n\nCharacter Details:\n- age: 40\n- mood: grumpy\n", prompt);
+    }
+
+    @Test
+    void testGet_ReturnsCompiledPromptUntilInvalidated() {
+        // Arrange
+        String first = systemPromptCache.get(character);
+        character.setSystemPrompt("You are a ninja");
+
+        // Act
+        String cached = systemPromptCache.get(character);
+        systemPromptCache.invalidate(character.getId());
+        String rebuilt = systemPromptCache.get(character);
+
+        // Assert
+        assertSame(first, cached);
+        assertTrue(rebuilt.startsWith("You are a ninja"));
+    }
+
+    @Test
+    void testGet_RebuildsWhenCharacterVersionChanges() {
+        // Arrange
+        systemPromptCache.get(character);
+        character.setSystemPrompt("You are a ninja");
+        character.setUpdatedAt(ZonedDateTime.now());
+
+        // Act
+        String prompt = systemPromptCache.get(character);
+
+        // Assert
+        assertTrue(prompt.startsWith("You are a ninja"));
+    }
+}
@@ -0,0 +1,97 @@
+package jr.chatbot.service.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testReserve_WithinBurst_DoesNotWait() {
+        var limiter = new UserRateLimiter(true, 2, 60, 0, Duration.ofSeconds(5), now::get);
+        UUID userId = UUID.randomUUID();
+
+        assertEquals(0, limiter.reserve(userId));
+        assertEquals(0, limiter.reserve(userId));
+    }
+
+    @Test
+    void testReserve_EmptyBucket_QueuesThenRejectsWithRetryAfter() {
+        var limiter = new UserRateLimiter(true, 1, 60, 1, Duration.ofSeconds(5), now::get);
+        UUID userId = UUID.randomUUID();
+
+        assertEquals(0, limiter.reserve(userId));
+        assertEquals(TimeUnit.SECONDS.toNanos(1), limiter.reserve(userId));
+
+        var exception = assertThrows(RateLimitExceededException.class, () -> limiter.reserve(userId));
+        assertEquals(2, exception.getRetryAfterSeconds());
+        assertEquals("2", exception.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void testReserve_Refills_AndBucketsArePerUser() {
+        var limiter = new UserRateLimiter(true, 1, 60, 0, Duration.ofSeconds(5), now::get);
+        UUID userId = UUID.randomUUID();
+
+        assertEquals(0, limiter.reserve(userId));
+        assertThrows(RateLimitExceededException.class, () -> limiter.reserve(userId));
+        assertEquals(0, limiter.reserve(UUID.randomUUID()));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, limiter.reserve(userId));
+    }
+
+    @Test
+    void testReserve_SeveralTokens_AllOrNothing() {
+        var limiter = new UserRateLimiter(true, 3, 60, 0, Duration.ofSeconds(1), now::get);
+        UUID userId = UUID.randomUUID();
+
+        assertEquals(0, limiter.reserve(userId, 2));
+        // Two more would need a one-second wait past max-wait; the single token left must stay in the bucket
+        assertThrows(RateLimitExceededException.class, () -> limiter.reserve(userId, 3));
+        assertEquals(0, limiter.reserve(userId, 1));
+    }
+
+    @Test
+    void testAcquire_Interrupted_ReturnsReservedTokens() {
+        var limiter = new UserRateLimiter(true, 1, 60, 5, Duration.ofSeconds(5), now::get);
+        UUID userId = UUID.randomUUID();
+        assertEquals(0, limiter.reserve(userId));
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(RateLimitExceededException.class, () -> limiter.acquire(userId, 2));
+        } finally {
+            Thread.interrupted();
+        }
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, limiter.reserve(userId));
+    }
+
+    @Test
+    void testReserve_WaitBeyondMaxWait_Rejects() {
+        var limiter = new UserRateLimiter(true, 1, 6, 5, Duration.ofSeconds(5), now::get);
+        UUID userId = UUID.randomUUID();
+
+        assertEquals(0, limiter.reserve(userId));
+        assertThrows(RateLimitExceededException.class, () -> limiter.reserve(userId));
+    }
+
+    @Test
+    void testReserve_Disabled_NeverLimits() {
+        var limiter = new UserRateLimiter(false, 1, 1, 0, Duration.ZERO, now::get);
+        UUID userId = UUID.randomUUID();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.reserve(userId));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package jr.chatbot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CancellationHandleTest {
+
+    @Test
+    void testCancel_InterruptsAttachedWorker() throws Exception {
+        // Arrange
+        var handle = new CancellationHandle();
+        var attached = new CountDownLatch(1);
+        var interrupted = new AtomicBoolean();
+        Thread worker = Thread.ofVirtual().start(() -> {
+            handle.attach();
+            attached.countDown();
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            } finally {
+                handle.detach();
+            }
+        });
+        assertTrue(attached.await(5, TimeUnit.SECONDS));
+
+        // Act
+        handle.cancel();
+        worker.join(5_000);
+
+        // Assert
+        assertTrue(interrupted.get());
+        assertTrue(handle.isCancelled());
+    }
+
+    @Test
+    void testAttach_AfterCancel_InterruptsImmediately() {
+        // Arrange
+        var handle = new CancellationHandle();
+        handle.cancel();
+
+        // Act
+        handle.attach();
+        boolean interrupted = Thread.currentThread().isInterrupted();
+        handle.detach();
+
+        // Assert
+        assertTrue(interrupted);
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
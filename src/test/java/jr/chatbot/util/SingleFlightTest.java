@@ -0,0 +1,114 @@
+package jr.chatbot.util;
+
+import jr.chatbot.service.llm.RequestCancelledException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void testExecute_ConcurrentCallersShareOneExecution() throws Exception {
+        // Arrange
+        var calls = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "reply";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act
+            var follower = executor.submit(() -> singleFlight.execute("key", () -> {
+                calls.incrementAndGet();
+                return "other";
+            }));
+            // Give the follower time to join the leader's flight before it completes
+            Thread.sleep(200);
+            assertFalse(follower.isDone());
+            release.countDown();
+
+            // Assert
+            assertEquals(new SingleFlight.Result<>("reply", false), leader.get(5, TimeUnit.SECONDS));
+            assertEquals(new SingleFlight.Result<>("reply", true), follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        }
+    }
+
+    @Test
+    void testExecute_InterruptedFollowerStopsWaiting() throws Exception {
+        // Arrange
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                started.countDown();
+                await(release);
+                return "reply";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act
+            var follower = executor.submit(() -> {
+                Thread.currentThread().interrupt();
+                try {
+                    singleFlight.execute("key", () -> "other");
+                    return false;
+                } catch (RequestCancelledException e) {
+                    return Thread.currentThread().isInterrupted();
+                }
+            });
+
+            // Assert
+            assertTrue(follower.get(5, TimeUnit.SECONDS));
+            assertFalse(leader.isDone());
+            release.countDown();
+            assertEquals(new SingleFlight.Result<>("reply", false), leader.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testExecute_SequentialCallsRunAgain() {
+        // Arrange
+        var calls = new AtomicInteger();
+
+        // Act
+        singleFlight.execute("key", () -> String.valueOf(calls.incrementAndGet()));
+        var second = singleFlight.execute("key", () -> String.valueOf(calls.incrementAndGet()));
+
+        // Assert
+        assertFalse(second.shared());
+        assertEquals(2, calls.get());
+        assertFalse(singleFlight.isInFlight("key"));
+    }
+
+    @Test
+    void testExecute_FailureIsPropagatedAndCleared() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertFalse(singleFlight.isInFlight("key"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
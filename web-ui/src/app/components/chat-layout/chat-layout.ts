@@ -39,6 +39,8 @@ export class ChatLayout implements OnInit, OnDestroy {
   // Internal State Management
   private messagesByCharacter: Record<string, Message[]> = {};
   private chatByCharacter: Record<string, Chat> = {};
+  private olderCursorByChat: Record<string, string | undefined> = {};
+  private loadingOlder = false;
   private destroy$ = new Subject<void>();
 
   constructor(
@@ -300,7 +302,7 @@ export class ChatLayout implements OnInit, OnDestroy {
     const userId = this.jwtService.getUserId();
     if (!userId) return;
 
-    this.chatService.getChatsByCharacter(characterId, userId)
+    this.chatService.getChatSummaries(characterId)
       .pipe(takeUntil(this.destroy$))
       .subscribe({
         next: (chats) => {
@@ -320,8 +322,8 @@ export class ChatLayout implements OnInit, OnDestroy {
     return chats
       .filter(chat => chat.id !== this.currentChat?.id)
       .sort((a, b) => {
-        const dateA = new Date(a.updatedAt || a.createdAt || 0).getTime();
-        const dateB = new Date(b.updatedAt || b.createdAt || 0).getTime();
+        const dateA = new Date(a.lastMessageAt || a.updatedAt || a.createdAt || 0).getTime();
+        const dateB = new Date(b.lastMessageAt || b.updatedAt || b.createdAt || 0).getTime();
         return dateB - dateA;
       });
   }
@@ -332,6 +334,21 @@ export class ChatLayout implements OnInit, OnDestroy {
   onSelectPastChat(chat: Chat): void {
     if (!chat.id || !chat.characterId) return;
 
+    // Past chats are listed as summaries; fetch the newest page of messages on selection
+    if (chat.messageCount && !chat.messageList?.length) {
+      const chatId = chat.id;
+      this.chatService.getMessagePage(chatId)
+        .pipe(takeUntil(this.destroy$))
+        .subscribe({
+          next: (page) => {
+            this.olderCursorByChat[chatId] = page.nextCursor;
+            this.onSelectPastChat({ ...chat, messageList: [...page.messages].reverse() });
+          },
+          error: (err) => console.error('Failed to load chat', err)
+        });
+      return;
+    }
+
     this.selectedCharacterId = chat.characterId;
     this.currentChat = chat;
     this.chatByCharacter[chat.characterId] = chat;
@@ -341,6 +358,33 @@ export class ChatLayout implements OnInit, OnDestroy {
     this.messages = loadedMessages;
   }
 
+  /**
+   * Prepends the next older page of the current chat, if there is one
+   */
+  onLoadOlderMessages(): void {
+    const chatId = this.currentChat?.id;
+    const cursor = chatId ? this.olderCursorByChat[chatId] : undefined;
+    if (!chatId || !cursor || this.loadingOlder) return;
+
+    this.loadingOlder = true;
+    this.chatService.getMessagePage(chatId, cursor)
+      .pipe(takeUntil(this.destroy$))
+      .subscribe({
+        next: (page) => {
+          this.loadingOlder = false;
+          this.olderCursorByChat[chatId] = page.nextCursor;
+          if (this.currentChat?.id === chatId) {
+            this.messages.unshift(...[...page.messages].reverse());
+            this.updateCachedMessages();
+          }
+        },
+        error: (err) => {
+          this.loadingOlder = false;
+          console.error('Failed to load older messages', err);
+        }
+      });
+  }
+
   // ============================================================================
   // Message Handling
   // ============================================================================
@@ -395,12 +439,10 @@ export class ChatLayout implements OnInit, OnDestroy {
     if (!this.currentChat?.id || !this.selectedCharacterId) return;
 
     this.isTyping = true;
-    const history = this.messages.slice(0, -1);
 
     this.messageService.sendChatMessage(
       this.currentChat.id,
       this.selectedCharacterId,
-      history,
       content
     )
       .pipe(takeUntil(this.destroy$))
@@ -23,6 +23,7 @@ export class ChatPane implements AfterViewChecked {
   @Output() sendMessage = new EventEmitter<string>();
   @Output() clearChat = new EventEmitter<void>();
   @Output() editMessage = new EventEmitter<Message>();
+  @Output() loadOlder = new EventEmitter<void>();
 
   private shouldScroll = false;
   editingMessageId: string | null = null;
@@ -58,6 +59,13 @@ export class ChatPane implements AfterViewChecked {
     this.shouldScroll = true;
   }
 
+  onScroll() {
+    const el = this.messagesScroll?.nativeElement;
+    if (el && el.scrollTop === 0) {
+      this.loadOlder.emit();
+    }
+  }
+
   onClearChat() {
     this.clearChat.emit();
   }
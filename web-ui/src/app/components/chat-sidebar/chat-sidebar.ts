@@ -71,6 +71,9 @@ export class ChatSidebar {
       const lastMessage = chat.messageList[chat.messageList.length - 1];
       return lastMessage.content || 'Empty chat';
     }
+    if (chat.lastMessagePreview) {
+      return chat.lastMessagePreview;
+    }
     return 'New chat';
   }
 
@@ -3,5 +3,9 @@ import { Resource } from "./resource";
 
 export interface Chat extends Resource {
     characterId?: string;
+    participantIds?: Array<string>;
     messageList: Array<Message>;
+    messageCount?: number;
+    lastMessagePreview?: string;
+    lastMessageAt?: string;
 }
@@ -7,4 +7,6 @@ export interface Message extends Resource {
   timestamp?: Date;
   versions?: string[];
   currentVersionIndex?: number;
+  characterId?: string;
+  partial?: boolean;
 }
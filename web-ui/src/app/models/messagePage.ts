@@ -0,0 +1,6 @@
+import { Message } from "./message";
+
+export interface MessagePage {
+    messages: Array<Message>;
+    nextCursor?: string;
+}
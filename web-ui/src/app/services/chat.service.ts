@@ -4,7 +4,8 @@ import { environment } from "../../environments/environment";
 import { AbstractService } from "./abstract.service";
 import { ChatFilter } from "../models/chatFilter";
 import { Chat } from "../models/chat";
-import { Observable } from "rxjs";
+import { MessagePage } from "../models/messagePage";
+import { Observable, map } from "rxjs";
 
 @Injectable({ providedIn: 'root' })
 export class ChatService extends AbstractService<Chat, ChatFilter> {
@@ -28,6 +29,26 @@ export class ChatService extends AbstractService<Chat, ChatFilter> {
         return this.http.get<Chat>(`${this.baseUrl}/${id}`);
     }
 
+    getMessagePage(chatId: string, cursor?: string, limit?: number): Observable<MessagePage> {
+        const params: Record<string, string | number> = {};
+        if (cursor) {
+            params['cursor'] = cursor;
+        }
+        if (limit) {
+            params['limit'] = limit;
+        }
+        return this.http.get<MessagePage>(`${this.baseUrl}/${chatId}/messages`, { params });
+    }
+
+    /**
+     * Chat list entries without messages; load one with getMessagePage.
+     */
+    getChatSummaries(characterId: string): Observable<Chat[]> {
+        return this.http.get<Chat[]>(`${this.baseUrl}/summaries`, {
+            params: { characterId }
+        }).pipe(map(chats => chats.map(chat => ({ ...chat, messageList: [] }))));
+    }
+
     getChatsByCharacter(characterId: string, ownerId: string): Observable<Chat[]> {
         return this.http.get<Chat[]>(`${this.baseUrl}`, {
             params: { characterId, ownerId }
@@ -14,11 +14,11 @@ export class MessageService extends AbstractService<Message, MessageFilter> {
     super(http);
   }
 
-  sendChatMessage(chatId: string, characterId: string, history: Message[], userMessage: string): Observable<Message> {
+  sendChatMessage(chatId: string, characterId: string, userMessage: string): Observable<Message> {
+    // History is loaded server-side from the stored chat
     const payload = {
       chatId: chatId,
       characterId: characterId,
-      history: history,
       userMessage: userMessage
     };
     return this.http.post<Message>(`${this.baseUrl}/message`, payload);